@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.PrincipalCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs a bearer request through the filter, with warm caches (repeat requests) and cold caches (first request).
+ * The user repository is stubbed so the database is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+    private AuthTokenFilter authTokenFilter;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private PrincipalCache principalCache;
+
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(Fixtures.EMAIL);
+        user.setFirstName("Admin");
+        user.setLastName("Admin");
+        user.setPassword("password");
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(Fixtures.EMAIL)).thenReturn(Optional.of(user));
+
+        UserDetailsServiceImpl userDetailsService = BeanUtils.instantiateClass(
+                ReflectionUtils.accessibleConstructor(UserDetailsServiceImpl.class, UserRepository.class), userRepository);
+        verifiedTokenCache = new VerifiedTokenCache(10_000, 300_000);
+        principalCache = new PrincipalCache(10_000, 60_000);
+        JwtUtils jwtUtils = Fixtures.jwtUtils(verifiedTokenCache);
+
+        authTokenFilter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(authTokenFilter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(authTokenFilter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(authTokenFilter, "principalCache", principalCache);
+        ReflectionTestUtils.setField(authTokenFilter, "tokenRevocationList", new TokenRevocationList(10_000, 300_000));
+
+        authorization = "Bearer " + jwtUtils.generateJwtToken(Fixtures.authentication());
+    }
+
+    @Benchmark
+    public Authentication warmCaches() throws ServletException, IOException {
+        return filter();
+    }
+
+    @Benchmark
+    public Authentication coldCaches() throws ServletException, IOException {
+        verifiedTokenCache.invalidateAll();
+        principalCache.invalidateAll();
+        return filter();
+    }
+
+    private Authentication filter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+
+        try {
+            authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+
+final class Fixtures {
+    static final String EMAIL = "yoga@studio.com";
+
+    private Fixtures() {
+    }
+
+    static JwtUtils jwtUtils(VerifiedTokenCache verifiedTokenCache) throws GeneralSecurityException {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "keyRing", JwtKeyRing.ephemeral());
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        return jwtUtils;
+    }
+
+    static Authentication authentication() {
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(1L)
+                .username(EMAIL)
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .password("password")
+                .build();
+
+        return new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+    }
+}
@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs and verifies tokens, with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtils jwtUtils;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        verifiedTokenCache = new VerifiedTokenCache(10_000, 300_000);
+        jwtUtils = Fixtures.jwtUtils(verifiedTokenCache);
+        authentication = Fixtures.authentication();
+        token = jwtUtils.generateJwtToken(authentication);
+        jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenCached() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenUncached() {
+        verifiedTokenCache.invalidateAll();
+        return jwtUtils.validateJwtToken(token);
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing and checking a password at several BCrypt strengths (10 is the application default).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "test!1234";
+
+    @Param({"4", "8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder passwordEncoder;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(strength);
+        hash = passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Maps lists of sessions in both directions. Services are stubbed so only the mapping itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionMapperBenchmark {
+    private static final int PARTICIPANTS = 20;
+
+    @Param({"10", "200", "1000"})
+    private int size;
+
+    private SessionMapper sessionMapper;
+
+    private List<Session> sessions;
+
+    private List<SessionDto> dtos;
+
+    private List<SessionSummary> summaries;
+
+    private Map<Long, List<Long>> participants;
+
+    @Setup
+    public void setUp() {
+        Teacher teacher = Teacher.builder().id(1L).firstName("Margot").lastName("Delahaye").build();
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= PARTICIPANTS; id++) {
+            User user = new User();
+            user.setId(id);
+            users.add(user);
+        }
+        List<Long> userIds = users.stream().map(User::getId).collect(Collectors.toList());
+
+        TeacherService teacherService = mock(TeacherService.class);
+        when(teacherService.findById(any())).thenReturn(teacher);
+        UserService userService = mock(UserService.class);
+        when(userService.findAllById(anyCollection())).thenReturn(users);
+
+        sessionMapper = Mappers.getMapper(SessionMapper.class);
+        ReflectionTestUtils.setField(sessionMapper, "teacherService", teacherService);
+        ReflectionTestUtils.setField(sessionMapper, "userService", userService);
+
+        sessions = new ArrayList<>();
+        summaries = new ArrayList<>();
+        participants = new HashMap<>();
+        Date date = new Date();
+        for (long id = 1; id <= size; id++) {
+            sessions.add(Session.builder()
+                    .id(id)
+                    .name("Session " + id)
+                    .date(date)
+                    .description("Description " + id)
+                    .teacher(teacher)
+                    .users(users)
+                    .build());
+            summaries.add(new SessionSummary(id, "Session " + id, date, 60, "Description " + id, teacher.getId(),
+                    null, PARTICIPANTS, null, null));
+            participants.put(id, userIds);
+        }
+        dtos = sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public List<SessionDto> toDto() {
+        return sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public List<SessionDto> summaryToDto() {
+        return sessionMapper.toDto(summaries, participants);
+    }
+
+    @Benchmark
+    public List<Session> toEntity() {
+        return sessionMapper.toEntity(dtos);
+    }
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. {@link #mightContain} never allocates, answers false for
+ * values that were never added and true, with probability about {@code falsePositiveRate}, for
+ * values that were not. Values cannot be removed: build a new filter instead.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and the false positive rate in (0, 1)");
+        }
+
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.max(64, Math.min(optimalBits, Integer.MAX_VALUE - 63));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    public void put(String value) {
+        int h1 = value.hashCode();
+        int h2 = mix(h1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1 + i * h2);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        int h1 = value.hashCode();
+        int h2 = mix(h1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1 + i * h2);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private int index(int hash) {
+        return (hash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    // MurmurHash3 finalizer, gives a second hash independent enough for double hashing
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1;
+    }
+}
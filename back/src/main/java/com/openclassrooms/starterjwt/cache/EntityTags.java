@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.cache;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * HTTP validators derived from {@code updated_at} rather than from the serialized body, so a
+ * conditional request can be answered before the response is built.
+ */
+public final class EntityTags {
+    private EntityTags() {
+    }
+
+    public static String of(Long id, LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return id + "-0";
+        }
+
+        // Microseconds: two writes within the same second must not share a tag
+        long micros = updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + updatedAt.getNano() / 1_000;
+        return id + "-" + micros;
+    }
+
+    /**
+     * A version for an ordered collection: adding, removing, reordering or updating a member
+     * changes it.
+     */
+    public static String ofCollection(Stream<String> memberTags) {
+        String members = memberTags.collect(Collectors.joining(","));
+        return DigestUtils.md5DigestAsHex(members.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt != null ? Timestamp.valueOf(updatedAt).getTime() : -1L;
+    }
+}
@@ -0,0 +1,163 @@
+package com.openclassrooms.starterjwt.cache;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, least-recently-used cache whose entries expire after a time-to-live.
+ */
+public class ExpiringCache<K, V> {
+    private final int maxSize;
+
+    private final long ttlMs;
+
+    private final Clock clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxSize, long ttlMs) {
+        this(maxSize, ttlMs, Clock.systemUTC());
+    }
+
+    public ExpiringCache(int maxSize, long ttlMs, Clock clock) {
+        if (maxSize < 1 || ttlMs < 1) {
+            throw new IllegalArgumentException("Cache size and time-to-live must be positive");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        long now = this.clock.millis();
+
+        synchronized (this.entries) {
+            Entry<V> entry = this.entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                this.hits.increment();
+                return entry.value;
+            }
+
+            if (entry != null) {
+                this.entries.remove(key);
+                this.evictions.increment();
+            }
+        }
+
+        this.misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns the cached value, or loads and caches it. The loader runs outside the cache lock,
+     * so concurrent misses on the same key may load it more than once.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = this.get(key);
+        if (value != null) {
+            return value;
+        }
+
+        value = loader.apply(key);
+        if (value != null) {
+            this.put(key, value);
+        }
+
+        return value;
+    }
+
+    public void put(K key, V value) {
+        this.put(key, value, this.clock.millis() + this.ttlMs);
+    }
+
+    /**
+     * Caches a value until the given epoch millis, capped by the cache time-to-live.
+     */
+    public void put(K key, V value, long expiresAt) {
+        long expiry = Math.min(expiresAt, this.clock.millis() + this.ttlMs);
+
+        synchronized (this.entries) {
+            this.entries.put(key, new Entry<>(value, expiry));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (this.entries) {
+            this.entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    public void evictExpired() {
+        long now = this.clock.millis();
+
+        synchronized (this.entries) {
+            Iterator<Entry<V>> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiresAt <= now) {
+                    iterator.remove();
+                    this.evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
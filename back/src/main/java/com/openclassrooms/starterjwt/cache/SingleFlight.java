@@ -0,0 +1,97 @@
+package com.openclassrooms.starterjwt.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs the loader on its own
+ * thread and every caller arriving meanwhile waits for and shares its result, or its exception.
+ * With a positive memoization window the result is also kept that long, so a burst right after
+ * the load is served without touching the loader at all.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final ExpiringCache<K, V> memo;
+
+    // Bumped on invalidation: a load that started before must not memoize what it read
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder shared = new LongAdder();
+
+    public SingleFlight(int memoSize, long memoMs) {
+        this.memo = memoMs > 0 ? new ExpiringCache<>(memoSize, memoMs) : null;
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (this.memo != null) {
+            V memoized = this.memo.get(key);
+            if (memoized != null) {
+                return memoized;
+            }
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = this.inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            this.shared.increment();
+            return await(leader);
+        }
+
+        long startedAt = this.generation.get();
+        this.loads.increment();
+        try {
+            V value = loader.apply(key);
+            if (this.memo != null && value != null && this.generation.get() == startedAt) {
+                this.memo.put(key, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Forgets the memoized value and detaches the load in flight, if any, so the next caller reads
+     * fresh data.
+     */
+    public void invalidate(K key) {
+        this.generation.incrementAndGet();
+        this.inFlight.remove(key);
+        if (this.memo != null) {
+            this.memo.invalidate(key);
+        }
+    }
+
+    public long getLoadCount() {
+        return this.loads.sum();
+    }
+
+    public long getSharedCount() {
+        return this.shared.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.controllers;
 
 import javax.validation.Valid;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -11,17 +12,24 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.request.TokenRefreshRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+import com.openclassrooms.starterjwt.services.TokenRevocationService;
+
+import io.jsonwebtoken.Claims;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -31,15 +39,24 @@ public class AuthController {
     private final JwtUtils jwtUtils;
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     AuthController(AuthenticationManager authenticationManager,
             PasswordEncoder passwordEncoder,
             JwtUtils jwtUtils,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            RefreshTokenService refreshTokenService,
+            UserDetailsServiceImpl userDetailsService,
+            TokenRevocationService tokenRevocationService) {
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @PostMapping("/login")
@@ -52,18 +69,32 @@ public class AuthController {
         String jwt = jwtUtils.generateJwtToken(authentication);
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
-        boolean isAdmin = false;
-        User user = this.userRepository.findByEmail(userDetails.getUsername()).orElse(null);
-        if (user != null) {
-            isAdmin = user.isAdmin();
+        return ResponseEntity.ok(toJwtResponse(jwt, this.refreshTokenService.issue(userDetails.getId()), userDetails));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody TokenRefreshRequest refreshRequest) {
+        RefreshTokenService.Rotation rotation = this.refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        UserDetailsImpl userDetails = this.userDetailsService.loadUserById(rotation.getUserId());
+
+        return ResponseEntity.ok(toJwtResponse(jwtUtils.generateJwtToken(userDetails), rotation.getRefreshToken(), userDetails));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @RequestBody(required = false) TokenRefreshRequest refreshRequest) {
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null) {
+            this.refreshTokenService.revoke(refreshRequest.getRefreshToken());
         }
 
-        return ResponseEntity.ok(new JwtResponse(jwt,
-                userDetails.getId(),
-                userDetails.getUsername(),
-                userDetails.getFirstName(),
-                userDetails.getLastName(),
-                isAdmin));
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            Claims claims = jwtUtils.verifyJwtToken(authorization.substring(7));
+            if (claims != null) {
+                this.tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            }
+        }
+
+        return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
     }
 
     @PostMapping("/register")
@@ -85,4 +116,14 @@ public class AuthController {
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
+
+    private static JwtResponse toJwtResponse(String jwt, String refreshToken, UserDetailsImpl userDetails) {
+        return new JwtResponse(jwt,
+                refreshToken,
+                userDetails.getId(),
+                userDetails.getUsername(),
+                userDetails.getFirstName(),
+                userDetails.getLastName(),
+                Boolean.TRUE.equals(userDetails.getAdmin()));
+    }
 }
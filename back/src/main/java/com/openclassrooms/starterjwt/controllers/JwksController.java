@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+public class JwksController {
+    private final JwtKeyRing keyRing;
+
+    public JwksController(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // Keys only change on redeploy, verifiers may keep them for a while
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(this.keyRing.getJwks());
+    }
+}
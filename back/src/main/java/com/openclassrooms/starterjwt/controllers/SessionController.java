@@ -1,52 +1,201 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.openclassrooms.starterjwt.cache.EntityTags;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.events.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.ParticipationStatus;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.pagination.SessionCursor;
+import com.openclassrooms.starterjwt.payload.response.SessionChangesResponse;
+import com.openclassrooms.starterjwt.payload.response.StreamTicketResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionExportService;
+import com.openclassrooms.starterjwt.services.SessionImportService;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionSyncService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = {SessionController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG})
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    // Clients may keep the body but must revalidate it with the ETag before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
-
+    private final SessionSyncService sessionSyncService;
+    private final SessionEventBroadcaster sessionEventBroadcaster;
+    private final SessionExportService sessionExportService;
+    private final SessionImportService sessionImportService;
+    private final JwtUtils jwtUtils;
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionSyncService sessionSyncService,
+                             SessionEventBroadcaster sessionEventBroadcaster,
+                             SessionExportService sessionExportService,
+                             SessionImportService sessionImportService,
+                             SessionMapper sessionMapper,
+                             JwtUtils jwtUtils) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionSyncService = sessionSyncService;
+        this.sessionEventBroadcaster = sessionEventBroadcaster;
+        this.sessionExportService = sessionExportService;
+        this.sessionImportService = sessionImportService;
+        this.jwtUtils = jwtUtils;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        // Rows are written as they are read, on an async thread once this method has returned
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sessions.ndjson\"")
+                    .body(this.sessionExportService::writeNdjson);
+        }
+
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(TEXT_CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sessions.csv\"")
+                    .body(this.sessionExportService::writeCsv);
+        }
+
+        return ResponseEntity.badRequest().build();
+    }
+
+    // EventSource cannot send the Authorization header: the streams below take this ticket as ?ticket= instead
+    @PostMapping("/events/ticket")
+    public ResponseEntity<StreamTicketResponse> streamTicket() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        return ResponseEntity.ok(new StreamTicketResponse(this.jwtUtils.generateStreamTicket(userDetails),
+                this.jwtUtils.getStreamTicketExpirationMs()));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeAll() {
+        return this.sessionEventBroadcaster.subscribeAll();
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@PathVariable("id") String id) {
+        try {
+            return ResponseEntity.ok(this.sessionEventBroadcaster.subscribe(Long.valueOf(id)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> findChanges(@RequestParam(value = "since", required = false) Long since,
+                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        SessionSyncService.Changes changes = this.sessionSyncService.findChanges(since, limit);
+        List<SessionSummary> sessions = changes.getUpdated();
+        Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                sessions.stream().map(SessionSummary::getId).collect(Collectors.toList()));
+
+        return ResponseEntity.ok().body(new SessionChangesResponse(this.sessionMapper.toDto(sessions, participants),
+                changes.getDeleted(), changes.getUntil(), changes.isHasMore()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            SessionSummary session = this.sessionService.getSummaryById(Long.valueOf(id));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            // Participation changes bump updated_at too, so the roster is covered by the tag
+            String etag = EntityTags.of(session.getId(), session.getUpdatedAt());
+            if (request.checkNotModified(etag, EntityTags.lastModified(session.getUpdatedAt()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+            }
+
+            List<Long> users = this.sessionService.findParticipantIds(session.getId());
+
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(this.sessionMapper.toDto(session, users));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                     @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                     @RequestParam(value = "teacherId", required = false) Long teacherId,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                     WebRequest request) {
+        try {
+            SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+            Slice<SessionSummary> page = this.sessionService.findPage(after, from, to, teacherId, limit);
+            List<SessionSummary> sessions = page.getContent();
+
+            String nextCursor = null;
+            if (page.hasNext()) {
+                SessionSummary last = sessions.get(sessions.size() - 1);
+                nextCursor = new SessionCursor(last.getDate(), last.getId()).encode();
+            }
+
+            // No Last-Modified here: removing a session from the page does not move the newest updated_at
+            String etag = EntityTags.ofCollection(Stream.concat(
+                    sessions.stream().map(session -> EntityTags.of(session.getId(), session.getUpdatedAt())),
+                    Stream.of(String.valueOf(nextCursor))));
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+            }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+            Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                    sessions.stream().map(SessionSummary::getId).collect(Collectors.toList()));
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+            if (nextCursor != null) {
+                response.header(NEXT_CURSOR_HEADER, nextCursor);
+            }
+
+            return response.body(this.sessionMapper.toDto(sessions, participants));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping()
@@ -59,6 +208,16 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<?> bulkImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        // The body is read row by row, never buffered as a whole
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            return ResponseEntity.ok().body(this.sessionImportService.importNdjson(body));
+        }
+
+        return ResponseEntity.ok().body(this.sessionImportService.importCsv(body));
+    }
+
     @PutMapping("{id}")
     public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
         try {
@@ -89,7 +248,11 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            ParticipationStatus status = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+
+            if (status == ParticipationStatus.WAITLISTED) {
+                return ResponseEntity.accepted().build();
+            }
 
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
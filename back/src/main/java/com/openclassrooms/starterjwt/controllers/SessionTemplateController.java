@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionTemplateDto;
+import com.openclassrooms.starterjwt.mapper.SessionTemplateMapper;
+import com.openclassrooms.starterjwt.models.SessionTemplate;
+import com.openclassrooms.starterjwt.services.SessionTemplateService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.Date;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/session-template")
+public class SessionTemplateController {
+    private final SessionTemplateMapper templateMapper;
+    private final SessionTemplateService templateService;
+
+
+    public SessionTemplateController(SessionTemplateService templateService,
+                                     SessionTemplateMapper templateMapper) {
+        this.templateMapper = templateMapper;
+        this.templateService = templateService;
+    }
+
+    @GetMapping()
+    public ResponseEntity<?> findAll() {
+        return ResponseEntity.ok().body(this.templateMapper.toDto(this.templateService.findAll()));
+    }
+
+    // Occurrences not materialized yet, the sessions endpoints serve the others
+    @GetMapping("/occurrences")
+    public ResponseEntity<?> findOccurrences(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
+        return ResponseEntity.ok().body(this.templateMapper.toOccurrenceDto(this.templateService.findOccurrences(from, to)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            SessionTemplate template = this.templateService.getById(Long.valueOf(id));
+
+            if (template == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.templateMapper.toDto(template));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody SessionTemplateDto templateDto) {
+        SessionTemplate template = this.templateService.create(this.templateMapper.toEntity(templateDto));
+
+        return ResponseEntity.ok().body(this.templateMapper.toDto(template));
+    }
+
+    @DeleteMapping("{id}")
+    public ResponseEntity<?> delete(@PathVariable("id") String id) {
+        try {
+            if (this.templateService.getById(Long.valueOf(id)) == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            this.templateService.delete(Long.parseLong(id));
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
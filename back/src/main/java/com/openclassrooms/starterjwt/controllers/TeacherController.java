@@ -1,16 +1,26 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.cache.EntityTags;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Date;
 import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = HttpHeaders.ETAG)
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final TeacherMapper teacherMapper;
     private final TeacherService teacherService;
 
@@ -22,7 +32,7 @@ public class TeacherController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
             Teacher teacher = this.teacherService.findById(Long.valueOf(id));
 
@@ -30,16 +40,43 @@ public class TeacherController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
+            String etag = EntityTags.of(teacher.getId(), teacher.getUpdatedAt());
+            if (request.checkNotModified(etag, EntityTags.lastModified(teacher.getUpdatedAt()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+            }
+
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(this.teacherMapper.toDto(teacher));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> findAvailability(@PathVariable("id") String id,
+                                              @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                              @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
+        try {
+            Long teacherId = Long.valueOf(id);
+            if (this.teacherService.findById(teacherId) == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.teacherService.findAvailability(teacherId, from, to));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest request) {
         List<Teacher> teachers = this.teacherService.findAll();
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        String etag = EntityTags.ofCollection(teachers.stream()
+                .map(teacher -> EntityTags.of(teacher.getId(), teacher.getUpdatedAt())));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(this.teacherMapper.toDto(teachers));
     }
 }
@@ -1,28 +1,43 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.pagination.SessionCursor;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = SessionController.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionMapper sessionMapper;
+    private final SessionService sessionService;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService,
+                             SessionMapper sessionMapper) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionMapper = sessionMapper;
+        this.sessionService = sessionService;
     }
 
     @GetMapping("/{id}")
@@ -40,6 +55,43 @@ public class UserController {
         }
     }
 
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id,
+                                          @RequestParam(value = "past", defaultValue = "false") boolean past,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            Long userId = Long.valueOf(id);
+            User user = this.userService.findById(userId);
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            // Like the account itself, a schedule is only visible to its owner, and to admins
+            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            boolean admin = userDetails instanceof UserDetailsImpl && Boolean.TRUE.equals(((UserDetailsImpl) userDetails).getAdmin());
+            if (!admin && !Objects.equals(userDetails.getUsername(), user.getEmail())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+
+            SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+            Slice<SessionSummary> page = this.sessionService.findPageByParticipant(userId, past, after, limit);
+            List<SessionSummary> sessions = page.getContent();
+            Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                    sessions.stream().map(SessionSummary::getId).collect(Collectors.toList()));
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.hasNext()) {
+                SessionSummary last = sessions.get(sessions.size() - 1);
+                response.header(SessionController.NEXT_CURSOR_HEADER, new SessionCursor(last.getDate(), last.getId()).encode());
+            }
+
+            return response.body(this.sessionMapper.toDto(sessions, participants));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
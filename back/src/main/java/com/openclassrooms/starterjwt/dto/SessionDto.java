@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -24,6 +26,11 @@ public class SessionDto {
     @NotNull
     private Date date;
 
+    // Minutes, 60 when not given
+    @Min(1)
+    @Max(1440)
+    private Integer duration;
+
     @NotNull
     private Long teacher_id;
 
@@ -31,6 +38,11 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
+    private Integer seatsTaken;
+
     private List<Long> users;
 
     private LocalDateTime createdAt;
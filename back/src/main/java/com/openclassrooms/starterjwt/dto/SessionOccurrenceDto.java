@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// A future occurrence of a template that is not a session yet
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionOccurrenceDto {
+    private Long templateId;
+
+    private String name;
+
+    private Date date;
+
+    private Integer duration;
+
+    private Long teacher_id;
+
+    private String description;
+
+    private Integer capacity;
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionTemplateDto {
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @NotNull
+    private Long teacher_id;
+
+    @Min(1)
+    private Integer capacity;
+
+    @NotBlank
+    @Size(max = 255)
+    private String recurrence;
+
+    @NotNull
+    private LocalDateTime startsAt;
+
+    // Minutes, 60 when not given
+    @Min(1)
+    @Max(1440)
+    private Integer duration;
+
+    @NotBlank
+    @Size(max = 64)
+    private String timeZone;
+
+    private Date materializedUntil;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
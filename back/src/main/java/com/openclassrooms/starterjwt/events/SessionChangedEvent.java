@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Published whenever sessions, their seat counts or their rosters change: by {@code SessionService} for one
+ * session, by bulk writers once for all the sessions of a transaction.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SessionChangedEvent {
+    private final Collection<Long> sessionIds;
+
+    public SessionChangedEvent(Long sessionId) {
+        this(Collections.singletonList(sessionId));
+    }
+}
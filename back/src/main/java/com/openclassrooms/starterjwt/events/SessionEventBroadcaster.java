@@ -0,0 +1,306 @@
+package com.openclassrooms.starterjwt.events;
+
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.SessionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes session changes to Server-Sent Events subscribers.
+ * <p>
+ * Change events only mark the session dirty. Every {@code oc.app.sseFlushMs} the dirty sessions
+ * are loaded once, whatever the number of subscribers, and offered to the subscribers of each
+ * session and of the catalog stream. Each subscriber keeps at most one pending update per session
+ * (the newest wins) and at most {@code oc.app.sseBufferSize} sessions; past that its buffer is
+ * dropped and it gets a {@code resync} event telling it to reload. Sends run on a small pool with
+ * at most one task per subscriber, so a slow client only delays itself.
+ */
+@Component
+@Log4j2
+public class SessionEventBroadcaster implements DisposableBean {
+    public static final String SESSION_EVENT = "session";
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private static final String METRIC_PREFIX = "session.events";
+
+    private final SessionService sessionService;
+
+    private final long timeoutMs;
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final ThreadPoolExecutor sender;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscriber>> sessionSubscribers = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> catalogSubscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter overflows;
+
+    public SessionEventBroadcaster(SessionService sessionService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${oc.app.sseTimeoutMs}") long timeoutMs,
+                                   @Value("${oc.app.sseBufferSize}") int bufferSize,
+                                   @Value("${oc.app.sseMaxSubscribers}") int maxSubscribers,
+                                   @Value("${oc.app.sseSenderThreads}") int senderThreads) {
+        this.sessionService = sessionService;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        // At most one queued task per subscriber, so the queue is bounded by maxSubscribers
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("session-events-"));
+        this.overflows = Counter.builder(METRIC_PREFIX + ".overflows")
+                .description("Subscriber buffers dropped and replaced by a resync event")
+                .register(meterRegistry);
+
+        meterRegistry.gauge(METRIC_PREFIX + ".subscribers", this.subscriberCount, AtomicInteger::get);
+        new ExecutorServiceMetrics(this.sender, METRIC_PREFIX, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Stream of the changes of one session, throws {@link NotFoundException} when the session does not exist.
+     */
+    public SseEmitter subscribe(Long sessionId) {
+        Subscriber subscriber = this.register();
+        subscriber.onClose(() -> this.sessionSubscribers.computeIfPresent(sessionId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        }));
+        this.sessionSubscribers.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // Checked once subscribed: a deletion committed after this read is still pushed as a deleted update
+        if (this.sessionService.getSummaryById(sessionId) == null) {
+            subscriber.close.run();
+            throw new NotFoundException();
+        }
+
+        return subscriber.emitter;
+    }
+
+    /**
+     * Stream of the changes of every session.
+     */
+    public SseEmitter subscribeAll() {
+        Subscriber subscriber = this.register();
+        subscriber.onClose(() -> this.catalogSubscribers.remove(subscriber));
+        this.catalogSubscribers.add(subscriber);
+
+        return subscriber.emitter;
+    }
+
+    // Runs after the change is committed, or right away when it was made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        this.dirty.addAll(event.getSessionIds());
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.sseFlushMs}")
+    public void flush() {
+        List<Long> sessionIds = new ArrayList<>(this.dirty);
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        this.dirty.removeAll(sessionIds);
+
+        if (this.catalogSubscribers.isEmpty()) {
+            sessionIds.retainAll(this.sessionSubscribers.keySet());
+        }
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(sessionIds);
+        for (Long sessionId : sessionIds) {
+            Set<Subscriber> subscribers = this.sessionSubscribers.getOrDefault(sessionId, Collections.emptySet());
+            SessionSummary session = this.sessionService.getSummaryById(sessionId);
+            SessionUpdate update = session == null
+                    ? SessionUpdate.deleted(sessionId)
+                    : new SessionUpdate(sessionId, false, session.getCapacity(), session.getSeatsTaken(),
+                            participants.getOrDefault(sessionId, Collections.emptyList()));
+
+            subscribers.forEach(subscriber -> subscriber.offer(update));
+            this.catalogSubscribers.forEach(subscriber -> subscriber.offer(update));
+        }
+    }
+
+    // Keeps idle connections open through proxies that close silent ones
+    @Scheduled(fixedDelayString = "${oc.app.sseHeartbeatMs}")
+    public void heartbeat() {
+        this.sessionSubscribers.values().forEach(subscribers -> subscribers.forEach(Subscriber::ping));
+        this.catalogSubscribers.forEach(Subscriber::ping);
+    }
+
+    @Override
+    public void destroy() {
+        this.sender.shutdownNow();
+        this.sessionSubscribers.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        this.catalogSubscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private Subscriber register() {
+        if (this.subscriberCount.incrementAndGet() > this.maxSubscribers) {
+            this.subscriberCount.decrementAndGet();
+            throw new TooManyRequestsException();
+        }
+
+        return new Subscriber(new SseEmitter(this.timeoutMs));
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        // Guarded by this
+        private final Map<Long, SessionUpdate> pending = new LinkedHashMap<>();
+
+        private boolean overflowed;
+
+        private boolean pingRequested;
+
+        private boolean draining;
+
+        private boolean closed;
+
+        private Runnable close = () -> { };
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void onClose(Runnable unregister) {
+            this.close = () -> {
+                synchronized (this) {
+                    if (this.closed) {
+                        return;
+                    }
+                    this.closed = true;
+                    this.pending.clear();
+                }
+                unregister.run();
+                subscriberCount.decrementAndGet();
+            };
+
+            this.emitter.onCompletion(this.close);
+            this.emitter.onTimeout(this.close);
+            this.emitter.onError(e -> this.close.run());
+        }
+
+        private void offer(SessionUpdate update) {
+            synchronized (this) {
+                if (this.closed || this.overflowed) {
+                    return;
+                }
+
+                this.pending.put(update.getSessionId(), update);
+                if (this.pending.size() > bufferSize) {
+                    this.pending.clear();
+                    this.overflowed = true;
+                    overflows.increment();
+                }
+            }
+            this.scheduleDrain();
+        }
+
+        private void ping() {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.pingRequested = true;
+            }
+            this.scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            synchronized (this) {
+                if (this.draining) {
+                    return;
+                }
+                this.draining = true;
+            }
+
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    this.draining = false;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<SessionUpdate> updates;
+                boolean resync;
+                boolean ping;
+                synchronized (this) {
+                    if (this.closed || (this.pending.isEmpty() && !this.overflowed && !this.pingRequested)) {
+                        this.draining = false;
+                        return;
+                    }
+
+                    updates = new ArrayList<>(this.pending.values());
+                    resync = this.overflowed;
+                    ping = this.pingRequested;
+                    this.pending.clear();
+                    this.overflowed = false;
+                    this.pingRequested = false;
+                }
+
+                try {
+                    if (resync) {
+                        this.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                    }
+                    for (SessionUpdate update : updates) {
+                        this.emitter.send(SseEmitter.event().name(SESSION_EVENT).data(update, MediaType.APPLICATION_JSON));
+                    }
+                    if (ping && !resync && updates.isEmpty()) {
+                        this.emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away: the container reports the error itself, only unregister here
+                    log.debug("Dropping session event subscriber: {}", e.getMessage());
+                    synchronized (this) {
+                        this.draining = false;
+                    }
+                    this.close.run();
+                    return;
+                }
+            }
+        }
+    }
+}
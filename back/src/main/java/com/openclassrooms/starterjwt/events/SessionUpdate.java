@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * State of a session as pushed to event stream subscribers.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SessionUpdate {
+    private final Long sessionId;
+
+    private final boolean deleted;
+
+    private final Integer capacity;
+
+    private final Integer seatsTaken;
+
+    private final List<Long> users;
+
+    public static SessionUpdate deleted(Long sessionId) {
+        return new SessionUpdate(sessionId, true, null, null, null);
+    }
+}
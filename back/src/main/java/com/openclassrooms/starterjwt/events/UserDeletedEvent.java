@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by {@code UserService} when an account is deleted.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class UserDeletedEvent {
+    private final String email;
+}
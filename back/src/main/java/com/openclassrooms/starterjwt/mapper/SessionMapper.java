@@ -1,8 +1,10 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
@@ -13,7 +15,12 @@ import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,7 +35,10 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "users", expression = "java(this.resolveUsers(sessionDto.getUsers()))"),
+            @Mapping(target = "seatsTaken", ignore = true),
+            @Mapping(target = "templateId", ignore = true),
+            @Mapping(target = "changeSeq", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
@@ -39,4 +49,34 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Mappings({
+            @Mapping(source = "summary.teacherId", target = "teacher_id"),
+            @Mapping(source = "users", target = "users"),
+    })
+    public abstract SessionDto toDto(SessionSummary summary, List<Long> users);
+
+    // One query for the whole roster instead of one per participant; unknown ids are rejected
+    protected List<User> resolveUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        Map<Long, User> users = this.userService.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Long> unknown = ids.stream().filter(id -> !users.containsKey(id)).collect(Collectors.toList());
+        if (!unknown.isEmpty()) {
+            throw new BadRequestException("Unknown user ids: " + unknown);
+        }
+
+        return ids.stream().map(users::get).collect(Collectors.toList());
+    }
+
+    public List<SessionDto> toDto(List<SessionSummary> summaries, Map<Long, List<Long>> participants) {
+        return summaries.stream()
+                .map(summary -> this.toDto(summary, participants.getOrDefault(summary.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
 }
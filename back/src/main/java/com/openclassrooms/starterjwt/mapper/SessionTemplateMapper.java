@@ -0,0 +1,36 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionOccurrenceDto;
+import com.openclassrooms.starterjwt.dto.SessionTemplateDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionTemplate;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Mapper(componentModel = "spring")
+public abstract class SessionTemplateMapper implements EntityMapper<SessionTemplateDto, SessionTemplate> {
+
+    @Autowired
+    TeacherService teacherService;
+
+    @Mappings({
+            @Mapping(target = "teacher", expression = "java(templateDto.getTeacher_id() != null ? this.teacherService.findById(templateDto.getTeacher_id()) : null)"),
+            @Mapping(target = "materializedUntil", ignore = true),
+    })
+    public abstract SessionTemplate toEntity(SessionTemplateDto templateDto);
+
+    @Mapping(source = "teacher.id", target = "teacher_id")
+    public abstract SessionTemplateDto toDto(SessionTemplate template);
+
+    @Mapping(source = "teacher.id", target = "teacher_id")
+    public abstract SessionOccurrenceDto toOccurrenceDto(Session session);
+
+    public abstract List<SessionOccurrenceDto> toOccurrenceDto(List<Session> sessions);
+}
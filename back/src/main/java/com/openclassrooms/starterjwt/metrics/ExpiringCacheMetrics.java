@@ -0,0 +1,47 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import com.openclassrooms.starterjwt.cache.ExpiringCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Publishes the counters of every {@link ExpiringCache} bean under the usual {@code cache.*} meters,
+ * tagged with the bean name, e.g. {@code cache.gets{cache=principalCache,result=hit}}.
+ */
+@Component
+public class ExpiringCacheMetrics implements MeterBinder {
+    private final Map<String, ExpiringCache<?, ?>> caches;
+
+    public ExpiringCacheMetrics(Map<String, ExpiringCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.caches.forEach((name, cache) -> bind(registry, name, cache));
+    }
+
+    private static void bind(MeterRegistry registry, String name, ExpiringCache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::getHitCount)
+                .tags("cache", name, "result", "hit")
+                .description("Lookups that found a live entry")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::getMissCount)
+                .tags("cache", name, "result", "miss")
+                .description("Lookups that found no live entry")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, ExpiringCache::getEvictionCount)
+                .tag("cache", name)
+                .description("Entries dropped because they expired or the cache was full")
+                .register(registry);
+        Gauge.builder("cache.size", cache, ExpiringCache::size)
+                .tag("cache", name)
+                .description("Entries currently cached")
+                .register(registry);
+    }
+}
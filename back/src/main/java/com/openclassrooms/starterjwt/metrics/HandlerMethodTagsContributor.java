@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tags {@code http.server.requests} with the controller method that handled the request,
+ * e.g. {@code handler=SessionController.findAll}.
+ */
+@Component
+public class HandlerMethodTagsContributor implements WebMvcTagsContributor {
+    private static final Tag NO_HANDLER = Tag.of("handler", "none");
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+        return Tags.of(handlerTag(handler));
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.of(handlerTag(handler));
+    }
+
+    private static Tag handlerTag(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return NO_HANDLER;
+        }
+
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        return Tag.of("handler", handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+    }
+}
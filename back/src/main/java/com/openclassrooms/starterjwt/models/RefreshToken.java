@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "REFRESH_TOKENS", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"token_hash"})
+})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the token: the token itself is only ever known to the client
+    @NotNull
+    @Column(name = "token_hash", length = 44)
+    private String tokenHash;
+
+    @NotNull
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NotNull
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -3,11 +3,13 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -16,7 +18,14 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "SESSIONS")
+@Table(name = "SESSIONS", indexes = {
+        @Index(name = "idx_sessions_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_sessions_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_sessions_date", columnList = "date, id"),
+        @Index(name = "idx_sessions_teacher_date", columnList = "teacher_id, date, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sessions_template_date", columnNames = {"template_id", "date"})
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Accessors(chain = true)
@@ -37,19 +46,42 @@ public class Session {
     @NotNull
     private Date date;
 
+    // Minutes
+    @NotNull
+    @Builder.Default
+    @ColumnDefault("60")
+    @Column(nullable = false)
+    private Integer duration = 60;
+
     @NotNull
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
+    @NotNull
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "seats_taken", nullable = false)
+    private Integer seatsTaken = 0;
+
     @OneToOne
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Set when the session is an occurrence of a SessionTemplate, never changed by updates
+    @Column(name = "template_id", updatable = false)
+    private Long templateId;
+
+    @ManyToMany
+    @OrderBy("id")
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "user_id"}),
+            indexes = @Index(name = "idx_participate_user_id", columnList = "user_id") )
     private List<User> users;
 
     @CreatedDate
@@ -59,4 +91,8 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Position in the delta sync, stamped by SessionChangeLog only
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
 }
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * The single row recording how far the delta sync history is purged. Change numbers come from
+ * {@link SessionChangeTicket}.
+ */
+@Entity
+@Table(name = "SESSION_CHANGE_SEQ")
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionChangeSequence {
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    // Tombstones up to this number are purged
+    @NotNull
+    @Column(name = "purged_seq", nullable = false)
+    private Long purgedSeq;
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * A change number of the delta sync, taken once by each transaction changing sessions. Numbers come from
+ * AUTO_INCREMENT, so writers do not wait for each other, but they commit out of order.
+ */
+@Entity
+@Table(name = "SESSION_CHANGE_TICKETS")
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"seq"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionChangeTicket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone of a deleted session, kept for the retention window of the delta sync.
+ */
+@Entity
+@Table(name = "SESSION_DELETIONS", indexes = {
+        @Index(name = "idx_session_deletions_deleted_at", columnList = "deleted_at"),
+        @Index(name = "idx_session_deletions_change_seq", columnList = "change_seq")
+})
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @NotNull
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Position in the delta sync, from SessionChangeLog
+    @Column(name = "change_seq", updatable = false)
+    private Long changeSeq;
+}
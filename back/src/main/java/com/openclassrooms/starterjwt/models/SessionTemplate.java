@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+@Entity
+@Table(name = "SESSION_TEMPLATES", indexes = {
+        @Index(name = "idx_session_templates_materialized_until", columnList = "materialized_until")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @Min(1)
+    private Integer capacity;
+
+    @ManyToOne
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    private Teacher teacher;
+
+    // RRULE subset, see RecurrenceRule
+    @NotBlank
+    @Size(max = 255)
+    private String recurrence;
+
+    // Wall-clock start of the first occurrence, in timeZone
+    @NotNull
+    @Column(name = "starts_at")
+    private LocalDateTime startsAt;
+
+    // Minutes, for every occurrence
+    @NotNull
+    @Builder.Default
+    @ColumnDefault("60")
+    @Column(nullable = false)
+    private Integer duration = 60;
+
+    @NotBlank
+    @Size(max = 64)
+    @Column(name = "time_zone")
+    private String timeZone;
+
+    // Occurrences starting before this instant exist as SESSIONS rows
+    @Column(name = "materialized_until")
+    private Date materializedUntil;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,8 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -13,6 +15,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "TEACHERS")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Accessors(chain = true)
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Revocation of one access token ({@code tokenId} is its {@code jti}) or of every token of a user issued
+ * before {@code revokedAt}, shared by all instances until {@code expiresAt}.
+ */
+@Entity
+@Table(name = "TOKEN_REVOCATIONS", indexes = {
+        @Index(name = "idx_token_revocations_expires_at", columnList = "expires_at")
+})
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class TokenRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "username")
+    private String username;
+
+    @NotNull
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
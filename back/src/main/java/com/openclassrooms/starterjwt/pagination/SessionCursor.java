@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+@Getter
+@AllArgsConstructor
+public class SessionCursor {
+    private static final String SEPARATOR = ":";
+
+    private final Date date;
+
+    private final Long id;
+
+    public static SessionCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed session cursor");
+            }
+
+            return new SessionCursor(new Date(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed session cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = this.date.getTime() + SEPARATOR + this.id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -8,6 +8,7 @@ import lombok.Setter;
 public class JwtResponse {
   private String token;
   private String type = "Bearer";
+  private String refreshToken;
   private Long id;
   private String username;
   private String firstName;
@@ -15,8 +16,9 @@ public class JwtResponse {
 
   private Boolean admin;
 
-  public JwtResponse(String accessToken, Long id, String username,String firstName, String lastName, Boolean admin) {
+  public JwtResponse(String accessToken, String refreshToken, Long id, String username,String firstName, String lastName, Boolean admin) {
     this.token = accessToken;
+    this.refreshToken = refreshToken;
     this.id = id;
     this.firstName = firstName;
     this.lastName = lastName;
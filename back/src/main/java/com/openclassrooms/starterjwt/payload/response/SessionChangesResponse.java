@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SessionChangesResponse {
+  private List<SessionDto> updated;
+
+  private List<Long> deleted;
+
+  // Change number to pass back as since
+  private long until;
+
+  // More changes follow until, ask again right away
+  private boolean hasMore;
+}
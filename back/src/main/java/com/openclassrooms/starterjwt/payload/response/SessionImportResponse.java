@@ -0,0 +1,25 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SessionImportResponse {
+  private List<Long> created;
+
+  private List<RowError> errors;
+
+  @Getter
+  @AllArgsConstructor
+  public static class RowError {
+    // 1-based line of the NDJSON body, or record of the CSV body after its header
+    private long row;
+
+    private List<String> messages;
+  }
+}
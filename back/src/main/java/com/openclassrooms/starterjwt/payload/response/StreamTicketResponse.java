@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StreamTicketResponse {
+  private String ticket;
+
+  // Milliseconds the ticket can be used to open a stream, a stream already open is not affected
+  private long expiresIn;
+}
@@ -0,0 +1,39 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class TeacherAvailabilityResponse {
+  private Date from;
+
+  private Date to;
+
+  // Sessions of the teacher overlapping the range, by start
+  private List<Booking> busy;
+
+  // Gaps between them, within the range
+  private List<Slot> free;
+
+  @Getter
+  @AllArgsConstructor
+  public static class Booking {
+    private Long sessionId;
+
+    private Date start;
+
+    private Date end;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class Slot {
+    private Date start;
+
+    private Date end;
+  }
+}
@@ -0,0 +1,219 @@
+package com.openclassrooms.starterjwt.recurrence;
+
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Subset of the RFC 5545 RRULE: {@code FREQ=DAILY|WEEKLY} with {@code INTERVAL}, {@code BYDAY} (weekly only),
+ * {@code COUNT} and {@code UNTIL}. Occurrences keep the wall-clock time of the first one, across DST changes.
+ */
+@Getter
+public class RecurrenceRule {
+    public enum Frequency { DAILY, WEEKLY }
+
+    private static final Map<String, DayOfWeek> DAYS = new HashMap<>();
+
+    static {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            DAYS.put(day.name().substring(0, 2), day);
+        }
+    }
+
+    private static final DateTimeFormatter UNTIL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final DateTimeFormatter UNTIL_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Frequency frequency;
+
+    private final int interval;
+
+    private final Set<DayOfWeek> byDay;
+
+    private final Integer count;
+
+    private final Instant until;
+
+    private RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> byDay, Integer count, Instant until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.count = count;
+        this.until = until;
+    }
+
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.trim().isEmpty()) {
+            throw new IllegalArgumentException("Empty recurrence rule");
+        }
+
+        String body = rule.trim();
+        if (body.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            body = body.substring(6);
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        Set<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        Integer count = null;
+        Instant until = null;
+        for (String part : body.split(";")) {
+            String[] pair = part.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Malformed recurrence part: " + part);
+            }
+
+            String name = pair[0].trim().toUpperCase();
+            String value = pair[1].trim().toUpperCase();
+            switch (name) {
+                case "FREQ":
+                    frequency = frequency(value);
+                    break;
+                case "INTERVAL":
+                    interval = positive(name, value);
+                    break;
+                case "COUNT":
+                    count = positive(name, value);
+                    break;
+                case "UNTIL":
+                    until = until(value);
+                    break;
+                case "BYDAY":
+                    for (String day : value.split(",")) {
+                        DayOfWeek dayOfWeek = DAYS.get(day.trim());
+                        if (dayOfWeek == null) {
+                            throw new IllegalArgumentException("Invalid BYDAY: " + day);
+                        }
+                        byDay.add(dayOfWeek);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported recurrence part: " + name);
+            }
+        }
+
+        if (frequency == null) {
+            throw new IllegalArgumentException("FREQ is required");
+        }
+        if (count != null && until != null) {
+            throw new IllegalArgumentException("COUNT and UNTIL cannot be combined");
+        }
+        if (!byDay.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY");
+        }
+
+        return new RecurrenceRule(frequency, interval, Collections.unmodifiableSet(byDay), count, until);
+    }
+
+    /**
+     * Occurrences starting in [from, to), in order. {@code start} is the first occurrence and counts towards COUNT.
+     */
+    public List<Instant> between(ZonedDateTime start, Instant from, Instant to) {
+        List<Instant> occurrences = new ArrayList<>();
+        LocalDate firstDate = start.toLocalDate();
+        LocalTime time = start.toLocalTime();
+        ZoneId zone = start.getZone();
+
+        long period = 0;
+        // Without COUNT the occurrences before from do not matter, jump close to it
+        if (this.count == null && from.isAfter(start.toInstant())) {
+            LocalDate fromDate = from.atZone(zone).toLocalDate();
+            long units = this.frequency == Frequency.DAILY
+                    ? ChronoUnit.DAYS.between(firstDate, fromDate)
+                    : ChronoUnit.WEEKS.between(weekOf(firstDate), weekOf(fromDate));
+            period = Math.max(0, units / this.interval - 1);
+        }
+
+        int seen = 0;
+        while (true) {
+            for (LocalDate date : this.datesOf(firstDate, period)) {
+                ZonedDateTime occurrence = ZonedDateTime.of(date, time, zone);
+                if (occurrence.isBefore(start)) {
+                    continue;
+                }
+
+                Instant instant = occurrence.toInstant();
+                if (!instant.isBefore(to)
+                        || (this.until != null && instant.isAfter(this.until))
+                        || (this.count != null && seen >= this.count)) {
+                    return occurrences;
+                }
+
+                seen++;
+                if (!instant.isBefore(from)) {
+                    occurrences.add(instant);
+                }
+            }
+            period++;
+        }
+    }
+
+    private List<LocalDate> datesOf(LocalDate firstDate, long period) {
+        if (this.frequency == Frequency.DAILY) {
+            return Collections.singletonList(firstDate.plusDays(period * this.interval));
+        }
+
+        LocalDate week = weekOf(firstDate).plusWeeks(period * this.interval);
+        if (this.byDay.isEmpty()) {
+            return Collections.singletonList(week.with(firstDate.getDayOfWeek()));
+        }
+
+        return this.byDay.stream().map(week::with).collect(Collectors.toList());
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(DayOfWeek.MONDAY);
+    }
+
+    private static Frequency frequency(String value) {
+        try {
+            return Frequency.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported FREQ: " + value);
+        }
+    }
+
+    private static int positive(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    // A date-only UNTIL includes the whole day
+    private static Instant until(String value) {
+        try {
+            if (value.length() == 8) {
+                return LocalDate.parse(value, UNTIL_DATE).atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
+            }
+
+            return LocalDateTime.parse(value, UNTIL_DATE_TIME).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid UNTIL: " + value);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionChangeSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SessionChangeSequenceRepository extends JpaRepository<SessionChangeSequence, Integer> {
+    @Query("select c.purgedSeq from SessionChangeSequence c where c.id = " + SessionChangeSequence.ID)
+    long findPurgedSeq();
+
+    @Modifying
+    @Query("update SessionChangeSequence c set c.purgedSeq = :seq where c.id = " + SessionChangeSequence.ID + " and c.purgedSeq < :seq")
+    int markPurged(@Param("seq") long seq);
+}
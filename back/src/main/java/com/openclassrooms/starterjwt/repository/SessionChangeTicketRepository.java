@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionChangeTicket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SessionChangeTicketRepository extends JpaRepository<SessionChangeTicket, Long> {
+    @Query("select t from SessionChangeTicket t where t.seq > :after order by t.seq asc")
+    List<SessionChangeTicket> findAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("select max(t.seq) from SessionChangeTicket t where t.createdAt < :cutoff")
+    Long findLastSeqBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from SessionChangeTicket t where t.seq < :seq")
+    int deleteBefore(@Param("seq") long seq);
+
+    // Takes the number of a transaction that did not commit, so readers need not wait for it
+    @Modifying
+    @Query(value = "insert into SESSION_CHANGE_TICKETS (seq, created_at) values (:seq, :createdAt)", nativeQuery = true)
+    int fill(@Param("seq") long seq, @Param("createdAt") LocalDateTime createdAt);
+}
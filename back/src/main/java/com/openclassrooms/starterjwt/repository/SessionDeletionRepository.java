@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.repository.projection.SessionChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SessionDeletionRepository extends JpaRepository<SessionDeletion, Long> {
+    @Query("select new com.openclassrooms.starterjwt.repository.projection.SessionChange(d.sessionId, d.changeSeq) " +
+            "from SessionDeletion d where d.changeSeq > :after and d.changeSeq <= :until order by d.changeSeq asc")
+    List<SessionChange> findChangesAfter(@Param("after") long after, @Param("until") long until, Pageable pageable);
+
+    @Query("select new com.openclassrooms.starterjwt.repository.projection.SessionChange(d.sessionId, d.changeSeq) " +
+            "from SessionDeletion d where d.changeSeq = :seq")
+    List<SessionChange> findChangesAt(@Param("seq") long seq);
+
+    @Query("select max(d.changeSeq) from SessionDeletion d where d.deletedAt < :cutoff")
+    Long findLastChangeSeqBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from SessionDeletion d where d.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
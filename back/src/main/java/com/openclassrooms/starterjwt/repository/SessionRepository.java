@@ -1,9 +1,174 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.projection.SessionChange;
+import com.openclassrooms.starterjwt.repository.projection.SessionSlot;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+    String SUMMARY_SELECT = "select new com.openclassrooms.starterjwt.repository.projection.SessionSummary(" +
+            "s.id, s.name, s.date, s.duration, s.description, t.id, s.capacity, s.seatsTaken, s.createdAt, s.updatedAt) " +
+            "from Session s left join s.teacher t ";
+
+    @Query(SUMMARY_SELECT + "where s.id = :id")
+    Optional<SessionSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT +
+            "where s.date < :to " +
+            "and (s.date > :afterDate or (s.date = :afterDate and s.id > :afterId)) " +
+            "order by s.date asc, s.id asc")
+    Slice<SessionSummary> findPage(@Param("afterDate") Date afterDate,
+                                   @Param("afterId") Long afterId,
+                                   @Param("to") Date to,
+                                   Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+            "where t.id = :teacherId " +
+            "and s.date < :to " +
+            "and (s.date > :afterDate or (s.date = :afterDate and s.id > :afterId)) " +
+            "order by s.date asc, s.id asc")
+    Slice<SessionSummary> findPageByTeacher(@Param("teacherId") Long teacherId,
+                                            @Param("afterDate") Date afterDate,
+                                            @Param("afterId") Long afterId,
+                                            @Param("to") Date to,
+                                            Pageable pageable);
+
+    // Sessions of a participant, reached through PARTICIPATE(user_id) instead of scanning the catalog
+    @Query(SUMMARY_SELECT + "join s.users u where u.id = :userId " +
+            "and (s.date > :afterDate or (s.date = :afterDate and s.id > :afterId)) " +
+            "order by s.date asc, s.id asc")
+    Slice<SessionSummary> findPageByParticipantAfter(@Param("userId") Long userId,
+                                                     @Param("afterDate") Date afterDate,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "join s.users u where u.id = :userId " +
+            "and (s.date < :beforeDate or (s.date = :beforeDate and s.id < :beforeId)) " +
+            "order by s.date desc, s.id desc")
+    Slice<SessionSummary> findPageByParticipantBefore(@Param("userId") Long userId,
+                                                      @Param("beforeDate") Date beforeDate,
+                                                      @Param("beforeId") Long beforeId,
+                                                      Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where s.id in :ids")
+    List<SessionSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.openclassrooms.starterjwt.repository.projection.SessionChange(s.id, s.changeSeq) " +
+            "from Session s where s.changeSeq > :after and s.changeSeq <= :until order by s.changeSeq asc")
+    List<SessionChange> findChangesAfter(@Param("after") long after, @Param("until") long until, Pageable pageable);
+
+    @Query("select new com.openclassrooms.starterjwt.repository.projection.SessionChange(s.id, s.changeSeq) " +
+            "from Session s where s.changeSeq = :seq")
+    List<SessionChange> findChangesAt(@Param("seq") long seq);
+
+    @Modifying
+    @Query("update Session s set s.changeSeq = :seq where s.id in :ids")
+    int stampChanges(@Param("ids") Collection<Long> ids, @Param("seq") long seq);
+
+    // Forward-only read for exports: projections stay out of the persistence context, and with
+    // useCursorFetch MySQL sends the rows one fetch at a time instead of the whole result set
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_SELECT + "order by s.date asc, s.id asc")
+    Stream<SessionSummary> streamAll();
+
+    String SLOT_SELECT = "select new com.openclassrooms.starterjwt.repository.projection.SessionSlot(" +
+            "s.id, t.id, s.date, s.duration) from Session s join s.teacher t ";
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SLOT_SELECT)
+    Stream<SessionSlot> streamSlots();
+
+    @Query(SLOT_SELECT + "where s.id in :ids")
+    List<SessionSlot> findSlotsByIds(@Param("ids") Collection<Long> ids);
+
+    // Sessions of the teacher overlapping [start, end), from the (teacher_id, date) index: those starting after
+    // earliest, the longest possible session before start. A locking read, so it sees what other instances committed
+    @Query(value = "select s.id from SESSIONS s where s.teacher_id = :teacherId " +
+            "and s.date >= :earliest and s.date < :end and TIMESTAMPADD(MINUTE, s.duration, s.date) > :start " +
+            "order by s.date for update", nativeQuery = true)
+    List<Number> findOverlappingIds(@Param("teacherId") Long teacherId, @Param("earliest") Date earliest,
+                                    @Param("start") Date start, @Param("end") Date end);
+
+    // Row lock on the session until the transaction ends: joins and leaves take it before reading the roster
+    // or the waitlist, so a leave cannot miss a user being waitlisted concurrently
+    @Query(value = "select s.id from SESSIONS s where s.id = :id for update", nativeQuery = true)
+    Optional<Number> lockById(@Param("id") Long id);
+
+    @Query(value = "select p.session_id, p.user_id from PARTICIPATE p " +
+            "where p.session_id in (:sessionIds) order by p.session_id, p.user_id", nativeQuery = true)
+    List<Object[]> findParticipants(@Param("sessionIds") Collection<Long> sessionIds);
+
+    // Without declared query spaces Hibernate evicts every second-level cache region on native DML
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "PARTICIPATE"))
+    @Query(value = "insert into PARTICIPATE (session_id, user_id) values (:sessionId, :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "PARTICIPATE"))
+    @Query(value = "delete from PARTICIPATE where session_id = :sessionId and user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Query(value = "select count(*) from PARTICIPATE where session_id = :sessionId and user_id = :userId", nativeQuery = true)
+    long countParticipation(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    // Occurrences of the template already stored in [from, to), served by the (template_id, date) key
+    @Query("select s.date from Session s where s.templateId = :templateId and s.date >= :from and s.date < :to")
+    List<Date> findTemplateDates(@Param("templateId") Long templateId, @Param("from") Date from, @Param("to") Date to);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Session s set s.templateId = null where s.templateId = :templateId")
+    int detachTemplate(@Param("templateId") Long templateId);
+
+    // updated_at versions the session for conditional GETs: it is stamped from the application
+    // clock like @UpdateTimestamp, CURRENT_TIMESTAMP only has second precision on MySQL
+    default int reserveSeat(Long id) {
+        return this.reserveSeat(id, LocalDateTime.now());
+    }
+
+    default int releaseSeat(Long id) {
+        return this.releaseSeat(id, LocalDateTime.now());
+    }
+
+    default int touch(Long id) {
+        return this.touch(id, LocalDateTime.now());
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Session s set s.seatsTaken = s.seatsTaken + 1, s.updatedAt = :now " +
+            "where s.id = :id and (s.capacity is null or s.seatsTaken < s.capacity)")
+    int reserveSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Session s set s.seatsTaken = s.seatsTaken - 1, s.updatedAt = :now " +
+            "where s.id = :id and s.seatsTaken > 0")
+    int releaseSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Session s set s.updatedAt = :now where s.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // seats_taken from the roster as stored, counted under the row lock the update takes
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "update SESSIONS set seats_taken = (select count(*) from PARTICIPATE p where p.session_id = :id) " +
+            "where id = :id", nativeQuery = true)
+    int recountSeats(@Param("id") Long id);
 }
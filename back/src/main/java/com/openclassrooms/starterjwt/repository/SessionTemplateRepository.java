@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SessionTemplateRepository extends JpaRepository<SessionTemplate, Long> {
+    @Query("select t.id from SessionTemplate t where t.materializedUntil is null or t.materializedUntil < :horizon")
+    List<Long> findIdsMaterializedBefore(@Param("horizon") Date horizon);
+}
@@ -2,8 +2,26 @@ package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TeacherRepository  extends JpaRepository<Teacher, Long> {
+    // Served from the query cache until a write to TEACHERS invalidates it
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    List<Teacher> findAll();
+
+    @Query("select t.id from Teacher t where t.id in (:ids)")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Row locks held until the transaction ends, taken in id order so two writers cannot deadlock
+    @Query(value = "select t.id from TEACHERS t where t.id in (:ids) order by t.id for update", nativeQuery = true)
+    List<Number> lockAll(@Param("ids") Collection<Long> ids);
 }
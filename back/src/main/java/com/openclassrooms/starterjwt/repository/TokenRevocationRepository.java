@@ -0,0 +1,21 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    @Query("select r from TokenRevocation r where r.id > :afterId and r.expiresAt >= :now order by r.id")
+    List<TokenRevocation> findLiveAfter(@Param("afterId") long afterId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from TokenRevocation r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,8 +1,12 @@
 package com.openclassrooms.starterjwt.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.starterjwt.models.User;
@@ -12,4 +16,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
 
   Boolean existsByEmail(String email); 
+
+  @Query("select u.id from User u where u.id in (:ids)")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WaitlistEntry> findFirstBySessionIdOrderByIdAsc(Long sessionId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from WaitlistEntry w where w.id = :id")
+    int deleteEntry(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from WaitlistEntry w where w.sessionId = :sessionId and w.userId = :userId")
+    int deleteEntry(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from WaitlistEntry w where w.sessionId = :sessionId")
+    int deleteBySession(@Param("sessionId") Long sessionId);
+}
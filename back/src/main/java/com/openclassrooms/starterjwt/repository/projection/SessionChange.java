@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class SessionChange {
+    private Long sessionId;
+
+    private Long changeSeq;
+}
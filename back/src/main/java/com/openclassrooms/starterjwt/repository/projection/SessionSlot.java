@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Date;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class SessionSlot {
+    private Long sessionId;
+
+    private Long teacherId;
+
+    private Date date;
+
+    private Integer duration;
+}
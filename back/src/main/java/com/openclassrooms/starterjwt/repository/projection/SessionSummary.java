@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class SessionSummary {
+    private Long id;
+
+    private String name;
+
+    private Date date;
+
+    private Integer duration;
+
+    private String description;
+
+    private Long teacherId;
+
+    private Integer capacity;
+
+    private Integer seatsTaken;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,196 @@
+package com.openclassrooms.starterjwt.schedule;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Half-open {@code [start, end)} intervals in an AVL tree ordered by (start, id), each node also keeping the
+ * largest end of its subtree so overlap queries skip whole subtrees: O(log n + k). Not thread-safe.
+ */
+public class IntervalTree {
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static class Interval {
+        private final long start;
+
+        private final long end;
+
+        private final long id;
+    }
+
+    private static class Node {
+        private final Interval interval;
+
+        private Node left;
+
+        private Node right;
+
+        private int height = 1;
+
+        private long maxEnd;
+
+        private Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.getEnd();
+        }
+    }
+
+    private Node root;
+
+    private int size;
+
+    public int size() {
+        return this.size;
+    }
+
+    public void insert(long start, long end, long id) {
+        this.root = insert(this.root, new Node(new Interval(start, end, id)));
+        this.size++;
+    }
+
+    public boolean remove(long start, long id) {
+        int before = this.size;
+        this.root = remove(this.root, start, id);
+        return this.size < before;
+    }
+
+    // Intervals overlapping [from, to), by start
+    public List<Interval> overlapping(long from, long to) {
+        List<Interval> found = new ArrayList<>();
+        collect(this.root, from, to, found);
+        return found;
+    }
+
+    private static void collect(Node node, long from, long to, List<Interval> found) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+
+        collect(node.left, from, to, found);
+        // Everything on the right starts at or after this node
+        if (node.interval.getStart() < to) {
+            if (node.interval.getEnd() > from) {
+                found.add(node.interval);
+            }
+            collect(node.right, from, to, found);
+        }
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+
+        if (compare(added.interval.getStart(), added.interval.getId(), node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            this.size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeFirst(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+
+        return balance(node);
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+
+        node.left = removeFirst(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int comparison = Long.compare(start, node.interval.getStart());
+        return comparison != 0 ? comparison : Long.compare(id, node.interval.getId());
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.interval.getEnd(), Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static long maxEnd(Node node) {
+        return node != null ? node.maxEnd : Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,212 @@
+package com.openclassrooms.starterjwt.schedule;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.ConflictException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionSlot;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Teacher bookings. A booking through {@link #book} is checked in the database under the teacher's row lock,
+ * which sees what every instance wrote. The in-memory index of each teacher's sessions, rebuilt at startup and
+ * kept up to date after each commit from {@link SessionChangedEvent}, only serves the availability reads: it
+ * is per instance, so the write path does not consult it.
+ */
+@Component
+@Log4j2
+public class TeacherSchedule implements SmartInitializingSingleton {
+    private static final long MINUTE_MS = 60_000L;
+
+    // SessionDto and SessionTemplateDto cap durations at a day
+    private static final long MAX_DURATION_MS = 1440 * MINUTE_MS;
+
+    private final SessionRepository sessionRepository;
+
+    private final TeacherRepository teacherRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+
+    // Where each session currently is, to move or remove it
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    public TeacherSchedule(SessionRepository sessionRepository,
+                           TeacherRepository teacherRepository,
+                           TransactionTemplate transactionTemplate) {
+        this.sessionRepository = sessionRepository;
+        this.teacherRepository = teacherRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Before the web server starts, so no booking is checked against an empty index
+    @Override
+    public void afterSingletonsInstantiated() {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<SessionSlot> sessions = this.sessionRepository.streamSlots()) {
+                sessions.forEach(this::index);
+            }
+        });
+        log.info("Teacher schedule indexed {} sessions", this.slots.size());
+    }
+
+    /**
+     * Saves the session unless its teacher is already booked in the meantime, throws {@link ConflictException}
+     * otherwise. Runs in the caller's transaction, or a new one, which holds the teacher's row lock until it ends.
+     * The index follows once the caller's {@link SessionChangedEvent} is committed.
+     */
+    public Session book(Session session, Supplier<Session> save) {
+        if (session.getTeacher() == null || session.getTeacher().getId() == null || session.getDate() == null) {
+            return save.get();
+        }
+
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return this.transactionTemplate.execute(status -> this.bookLocked(session, save));
+        }
+
+        return this.bookLocked(session, save);
+    }
+
+    /**
+     * Locks the teachers' rows until the surrounding transaction ends, for callers writing sessions on their own
+     * who then check each of them with {@link #findConflict}.
+     */
+    public void lock(Collection<Long> teacherIds) {
+        if (!teacherIds.isEmpty()) {
+            this.teacherRepository.lockAll(teacherIds.stream().sorted().collect(Collectors.toList()));
+        }
+    }
+
+    // A session of the teacher other than sessionId overlapping [start, end). The caller holds the teacher's row lock
+    public Optional<Long> findConflict(Long teacherId, Long sessionId, Date start, Date end) {
+        Date earliest = new Date(start.getTime() - MAX_DURATION_MS);
+        return this.sessionRepository.findOverlappingIds(teacherId, earliest, start, end).stream()
+                .map(Number::longValue)
+                .filter(id -> !id.equals(sessionId))
+                .findFirst();
+    }
+
+    private Session bookLocked(Session session, Supplier<Session> save) {
+        Long teacherId = session.getTeacher().getId();
+        long start = session.getDate().getTime();
+
+        // The row lock serializes the bookings of the teacher across instances
+        this.lock(Collections.singletonList(teacherId));
+        this.findConflict(teacherId, session.getId(), new Date(start), new Date(start + session.getDuration() * MINUTE_MS))
+                .ifPresent(conflict -> {
+                    throw new ConflictException("Teacher is already booked for session " + conflict);
+                });
+
+        return save.get();
+    }
+
+    // Bookings of the teacher overlapping [from, to), by start
+    public List<IntervalTree.Interval> findBookings(Long teacherId, Date from, Date to) {
+        IntervalTree tree = this.trees.get(teacherId);
+        if (tree == null) {
+            return Collections.emptyList();
+        }
+
+        synchronized (tree) {
+            return tree.overlapping(from.getTime(), to.getTime());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        this.refresh(event.getSessionIds());
+    }
+
+    // Re-reads the sessions in one query, missing or teacherless ones leave the index
+    public void refresh(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, SessionSlot> stored = this.sessionRepository.findSlotsByIds(sessionIds).stream()
+                .collect(Collectors.toMap(SessionSlot::getSessionId, Function.identity()));
+        for (Long sessionId : sessionIds) {
+            SessionSlot slot = stored.get(sessionId);
+            if (slot != null) {
+                this.index(slot);
+            } else {
+                this.unindex(sessionId, this.slots.remove(sessionId));
+            }
+        }
+    }
+
+    public int size() {
+        return this.slots.size();
+    }
+
+    private void index(SessionSlot session) {
+        long start = session.getDate().getTime();
+        long end = start + session.getDuration() * MINUTE_MS;
+
+        IntervalTree tree = this.treeOf(session.getTeacherId());
+        Slot moved;
+        synchronized (tree) {
+            moved = this.place(tree, session.getSessionId(), session.getTeacherId(), start, end);
+        }
+
+        this.unindex(session.getSessionId(), moved);
+    }
+
+    // The caller holds the lock of tree. Returns the slot the session had with another teacher, left for the caller
+    // to remove once this lock is released: two trees are never locked at once
+    private Slot place(IntervalTree tree, Long sessionId, Long teacherId, long start, long end) {
+        Slot previous = this.slots.put(sessionId, new Slot(teacherId, start));
+        if (previous != null && previous.teacherId.equals(teacherId)) {
+            tree.remove(previous.start, sessionId);
+            previous = null;
+        }
+        tree.insert(start, end, sessionId);
+
+        return previous;
+    }
+
+    private void unindex(Long sessionId, Slot slot) {
+        if (slot == null) {
+            return;
+        }
+
+        IntervalTree tree = this.treeOf(slot.teacherId);
+        synchronized (tree) {
+            tree.remove(slot.start, sessionId);
+        }
+    }
+
+    private IntervalTree treeOf(Long teacherId) {
+        return this.trees.computeIfAbsent(teacherId, id -> new IntervalTree());
+    }
+
+    private static class Slot {
+        private final Long teacherId;
+
+        private final long start;
+
+        private Slot(Long teacherId, long start) {
+            this.teacherId = teacherId;
+            this.start = start;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,8 +17,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.services.PooledPasswordEncoder;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(
@@ -31,6 +35,18 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${oc.app.passwordHashThreads}")
+  private int passwordHashThreads;
+
+  @Value("${oc.app.passwordHashQueueCapacity}")
+  private int passwordHashQueueCapacity;
+
+  @Value("${oc.app.passwordHashTimeoutMs}")
+  private long passwordHashTimeoutMs;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -49,7 +65,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    return new PooledPasswordEncoder(new BCryptPasswordEncoder(),
+        passwordHashThreads, passwordHashQueueCapacity, passwordHashTimeoutMs, meterRegistry);
   }
 
   @Override
@@ -58,6 +75,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
       .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
       .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
       .authorizeRequests().antMatchers("/api/auth/**").permitAll()
+      .antMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+      .antMatchers("/.well-known/jwks.json").permitAll()
       .antMatchers("/api/**").authenticated()
       .anyRequest().authenticated();
 
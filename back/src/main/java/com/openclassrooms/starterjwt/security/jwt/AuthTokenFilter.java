@@ -14,18 +14,37 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.services.PrincipalCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
+  public static final String STREAM_TICKET_PARAM = "ticket";
+
+  // EventSource cannot send an Authorization header, these paths take a stream ticket in the query string instead
+  private static final RequestMatcher STREAM_PATHS = new OrRequestMatcher(
+      new AntPathRequestMatcher("/api/session/events", "GET"),
+      new AntPathRequestMatcher("/api/session/*/events", "GET"));
+
   @Autowired
   private JwtUtils jwtUtils;
 
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private PrincipalCache principalCache;
+
+  @Autowired
+  private TokenRevocationList tokenRevocationList;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -33,10 +52,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
+      boolean ticket = false;
+      if (jwt == null && STREAM_PATHS.matches(request)) {
+        jwt = request.getParameter(STREAM_TICKET_PARAM);
+        ticket = jwt != null;
+      }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      Claims claims = jwt != null ? jwtUtils.verifyJwtToken(jwt) : null;
+      // A ticket only opens a stream, and a stream is never opened with an access token put in the URL
+      if (claims != null && jwtUtils.isStreamTicket(claims) != ticket) {
+        claims = null;
+      }
+      UserDetails userDetails = claims != null ? resolvePrincipal(claims) : null;
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -53,6 +81,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails resolvePrincipal(Claims claims) {
+    if (tokenRevocationList.isRevoked(claims)) {
+      return null;
+    }
+
+    String username = claims.getSubject();
+    if (jwtUtils.isStatelessAuth()) {
+      UserDetails fromClaims = jwtUtils.getUserDetailsFromClaims(claims);
+      if (fromClaims != null) {
+        return fromClaims;
+      }
+    }
+
+    return principalCache.get(username, userDetailsService::loadUserByUsername);
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
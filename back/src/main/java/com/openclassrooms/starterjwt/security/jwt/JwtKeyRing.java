@@ -0,0 +1,219 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+/**
+ * Signing keys loaded once at startup: the active key signs new tokens, every key in the ring
+ * (current and previous) verifies them, selected by the {@code kid} header. Keys come from the
+ * PKCS12 keystore {@code oc.app.jwtKeystore}, one alias per key id, RSA (RS256) or EC P-256 (ES256).
+ * Without a keystore startup fails, unless {@code oc.app.jwtEphemeralKey} allows an ephemeral RSA key
+ * for development and tests: tokens then do not survive a restart and no two instances accept each other's.
+ */
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+  private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+  private final String activeKeyId;
+
+  private final PrivateKey signingKey;
+
+  private final SignatureAlgorithm algorithm;
+
+  private final Map<String, PublicKey> verificationKeys;
+
+  private final Map<String, Object> jwks;
+
+  @Autowired
+  public JwtKeyRing(@Value("${oc.app.jwtKeystore}") String keystoreLocation,
+                    @Value("${oc.app.jwtKeystorePassword}") String keystorePassword,
+                    @Value("${oc.app.jwtActiveKeyId}") String activeKeyId,
+                    @Value("${oc.app.jwtEphemeralKey}") boolean ephemeralKeyAllowed,
+                    ResourceLoader resourceLoader) throws GeneralSecurityException, IOException {
+    this(StringUtils.hasText(keystoreLocation)
+        ? load(resourceLoader, keystoreLocation, keystorePassword, activeKeyId)
+        : ephemeral(ephemeralKeyAllowed));
+  }
+
+  public JwtKeyRing(String activeKeyId, PrivateKey signingKey, Map<String, PublicKey> verificationKeys) {
+    if (!verificationKeys.containsKey(activeKeyId)) {
+      throw new IllegalArgumentException("The active key " + activeKeyId + " is not in the key ring");
+    }
+
+    this.activeKeyId = activeKeyId;
+    this.signingKey = signingKey;
+    this.algorithm = algorithmFor(verificationKeys.get(activeKeyId));
+    this.verificationKeys = Collections.unmodifiableMap(new LinkedHashMap<>(verificationKeys));
+    this.jwks = buildJwks(this.verificationKeys);
+  }
+
+  private JwtKeyRing(JwtKeyRing loaded) {
+    this(loaded.activeKeyId, loaded.signingKey, loaded.verificationKeys);
+  }
+
+  private static JwtKeyRing ephemeral(boolean allowed) throws GeneralSecurityException {
+    if (!allowed) {
+      throw new IllegalStateException("No JWT keystore configured: set oc.app.jwtKeystore, "
+          + "or oc.app.jwtEphemeralKey=true for development");
+    }
+
+    return ephemeral();
+  }
+
+  /**
+   * A single-key ring with a freshly generated RSA key, for development and tests.
+   */
+  public static JwtKeyRing ephemeral() throws GeneralSecurityException {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+    String keyId = TokenDigests.sha256(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+        .substring(0, 16).replace('+', '-').replace('/', '_');
+
+    logger.warn("No JWT keystore configured, signing with ephemeral key {}", keyId);
+    return new JwtKeyRing(keyId, keyPair.getPrivate(), Collections.singletonMap(keyId, keyPair.getPublic()));
+  }
+
+  public String getActiveKeyId() {
+    return activeKeyId;
+  }
+
+  public PrivateKey getSigningKey() {
+    return signingKey;
+  }
+
+  public SignatureAlgorithm getAlgorithm() {
+    return algorithm;
+  }
+
+  public Map<String, PublicKey> getVerificationKeys() {
+    return verificationKeys;
+  }
+
+  /**
+   * The public half of the ring as a JSON Web Key Set, computed once.
+   */
+  public Map<String, Object> getJwks() {
+    return jwks;
+  }
+
+  @Override
+  public Key resolveSigningKey(JwsHeader header, Claims claims) {
+    PublicKey key = header.getKeyId() != null ? verificationKeys.get(header.getKeyId()) : null;
+    if (key == null) {
+      throw new SignatureException("Unknown JWT signing key: " + header.getKeyId());
+    }
+
+    // Never let the token pick an algorithm the key was not issued for
+    if (!algorithmFor(key).getValue().equals(header.getAlgorithm())) {
+      throw new SignatureException("Unexpected JWT algorithm " + header.getAlgorithm() + " for key " + header.getKeyId());
+    }
+
+    return key;
+  }
+
+  private static JwtKeyRing load(ResourceLoader resourceLoader, String location, String password, String activeKeyId)
+      throws GeneralSecurityException, IOException {
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream in = resourceLoader.getResource(location).getInputStream()) {
+      keyStore.load(in, password.toCharArray());
+    }
+
+    Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+    List<String> aliases = new ArrayList<>();
+    Enumeration<String> entries = keyStore.aliases();
+    while (entries.hasMoreElements()) {
+      String alias = entries.nextElement();
+      if (keyStore.isKeyEntry(alias)) {
+        aliases.add(alias);
+        publicKeys.put(alias, keyStore.getCertificate(alias).getPublicKey());
+      }
+    }
+
+    String active = StringUtils.hasText(activeKeyId) ? activeKeyId : (aliases.size() == 1 ? aliases.get(0) : null);
+    if (active == null || !keyStore.isKeyEntry(active)) {
+      throw new IllegalStateException("oc.app.jwtActiveKeyId must name one of the keystore aliases " + aliases);
+    }
+
+    PrivateKey signingKey = (PrivateKey) keyStore.getKey(active, password.toCharArray());
+    logger.info("Loaded JWT key ring {}, signing with {}", aliases, active);
+    return new JwtKeyRing(active, signingKey, publicKeys);
+  }
+
+  private static SignatureAlgorithm algorithmFor(PublicKey key) {
+    if (key instanceof RSAPublicKey) {
+      return SignatureAlgorithm.RS256;
+    }
+    if (key instanceof ECPublicKey && ((ECPublicKey) key).getParams().getCurve().getField().getFieldSize() == 256) {
+      return SignatureAlgorithm.ES256;
+    }
+
+    throw new IllegalArgumentException("Only RSA and EC P-256 keys are supported, got " + key.getAlgorithm());
+  }
+
+  private static Map<String, Object> buildJwks(Map<String, PublicKey> keys) {
+    List<Map<String, Object>> jwkList = new ArrayList<>();
+    keys.forEach((keyId, key) -> {
+      Map<String, Object> jwk = new LinkedHashMap<>();
+      jwk.put("kid", keyId);
+      jwk.put("use", "sig");
+      jwk.put("alg", algorithmFor(key).getValue());
+      if (key instanceof RSAPublicKey) {
+        RSAPublicKey rsa = (RSAPublicKey) key;
+        jwk.put("kty", "RSA");
+        jwk.put("n", base64Url(rsa.getModulus(), 0));
+        jwk.put("e", base64Url(rsa.getPublicExponent(), 0));
+      } else {
+        ECPublicKey ec = (ECPublicKey) key;
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("x", base64Url(ec.getW().getAffineX(), 32));
+        jwk.put("y", base64Url(ec.getW().getAffineY(), 32));
+      }
+      jwkList.add(Collections.unmodifiableMap(jwk));
+    });
+
+    return Collections.singletonMap("keys", Collections.unmodifiableList(jwkList));
+  }
+
+  // Unsigned big-endian, left-padded to length when it is not 0 (RFC 7518 section 6)
+  private static String base64Url(BigInteger value, int length) {
+    byte[] bytes = value.toByteArray();
+    int start = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+    int size = Math.max(bytes.length - start, length);
+    byte[] unsigned = new byte[size];
+    System.arraycopy(bytes, start, unsigned, size - (bytes.length - start), bytes.length - start);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+  }
+}
@@ -1,9 +1,11 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.util.Date;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -11,49 +13,154 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-  @Value("${oc.app.jwtSecret}")
-  private String jwtSecret;
+  public static final String ID_CLAIM = "id";
+
+  public static final String ADMIN_CLAIM = "admin";
+
+  public static final String FIRST_NAME_CLAIM = "firstName";
+
+  public static final String LAST_NAME_CLAIM = "lastName";
+
+  // Audience of the tickets that authenticate event streams, which browsers open without headers
+  public static final String STREAM_TICKET_AUDIENCE = "session-events";
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  // Claims-only authentication: no user load per request, so tokens must be short-lived
+  @Value("${oc.app.statelessAuth}")
+  private boolean statelessAuth;
+
+  @Value("${oc.app.statelessJwtExpirationMs}")
+  private int statelessJwtExpirationMs;
+
+  @Value("${oc.app.streamTicketExpirationMs}")
+  private int streamTicketExpirationMs;
+
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private JwtKeyRing keyRing;
+
   public String generateJwtToken(Authentication authentication) {
+    return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
+  }
+
+  public String generateJwtToken(UserDetailsImpl userPrincipal) {
+    return builder(userPrincipal, statelessAuth ? statelessJwtExpirationMs : jwtExpirationMs).compact();
+  }
+
+  /**
+   * Short-lived token carried in the query string of the event streams. It is only accepted there, and access
+   * tokens are not accepted there, so a ticket leaked through an URL log never grants access to the API.
+   */
+  public String generateStreamTicket(UserDetailsImpl userPrincipal) {
+    return builder(userPrincipal, streamTicketExpirationMs).setAudience(STREAM_TICKET_AUDIENCE).compact();
+  }
 
-    UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+  public boolean isStreamTicket(Claims claims) {
+    return STREAM_TICKET_AUDIENCE.equals(claims.getAudience());
+  }
 
+  public int getStreamTicketExpirationMs() {
+    return streamTicketExpirationMs;
+  }
+
+  private JwtBuilder builder(UserDetailsImpl userPrincipal, int expirationMs) {
     return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
         .setSubject((userPrincipal.getUsername()))
+        .claim(ID_CLAIM, userPrincipal.getId())
+        .claim(ADMIN_CLAIM, Boolean.TRUE.equals(userPrincipal.getAdmin()))
+        .claim(FIRST_NAME_CLAIM, userPrincipal.getFirstName())
+        .claim(LAST_NAME_CLAIM, userPrincipal.getLastName())
         .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
-        .compact();
+        .setExpiration(new Date((new Date()).getTime() + expirationMs))
+        .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+        .signWith(keyRing.getAlgorithm(), keyRing.getSigningKey());
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    Claims claims = verifyJwtToken(token);
+    if (claims == null) {
+      throw new MalformedJwtException("Invalid JWT token");
+    }
+
+    return claims.getSubject();
+  }
+
+  public boolean isStatelessAuth() {
+    return statelessAuth;
+  }
+
+  /**
+   * Rebuilds the principal from verified claims, or returns null when the token predates the
+   * identity claims and the user has to be loaded instead.
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    Number id = claims.get(ID_CLAIM, Number.class);
+    if (id == null) {
+      return null;
+    }
+
+    return UserDetailsImpl.builder()
+        .id(id.longValue())
+        .username(claims.getSubject())
+        .firstName(claims.get(FIRST_NAME_CLAIM, String.class))
+        .lastName(claims.get(LAST_NAME_CLAIM, String.class))
+        .admin(Boolean.TRUE.equals(claims.get(ADMIN_CLAIM, Boolean.class)))
+        .build();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return verifyJwtToken(authToken) != null;
+  }
+
+  /**
+   * Parses and verifies the token once and returns its claims, or null when the token is not valid.
+   * Tokens verified before are served from the cache until they expire.
+   */
+  public Claims verifyJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      Claims claims = verifiedTokenCache.getVerified(authToken);
+      if (claims != null) {
+        return claims;
+      }
+
+      claims = Jwts.parser().setSigningKeyResolver(keyRing).parseClaimsJws(authToken).getBody();
+      verifiedTokenCache.putVerified(authToken, claims);
+      return claims;
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
+      countFailure("signature");
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
+      countFailure("malformed");
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
+      countFailure("expired");
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+      countFailure("unsupported");
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
+      countFailure("empty");
     }
 
-    return false;
+    return null;
+  }
+
+  private void countFailure(String reason) {
+    meterRegistry.counter("jwt.validation.failures", "reason", reason).increment();
   }
 }
@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Digests used to keep tokens out of memory and out of the database.
+ */
+public final class TokenDigests {
+  private TokenDigests() {
+  }
+
+  public static String sha256(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.cache.BloomFilter;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Revoked access tokens (by {@code jti}, until they expire) and revoked users (tokens issued before
+ * the revocation, for one stateless token lifetime). Every authenticated request consults it, so a
+ * Bloom filter answers the common "not revoked" case without touching the maps; the filter is
+ * rebuilt when expired entries are purged. This is the view of one instance, {@code TokenRevocationService}
+ * records revocations in the database and feeds those of the other instances into it.
+ */
+@Component
+public class TokenRevocationList {
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private final int expectedSize;
+
+  private final long userRevocationTtlMs;
+
+  // jti -> token expiration
+  private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+  // username -> revocation time
+  private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+  private volatile BloomFilter filter;
+
+  public TokenRevocationList(@Value("${oc.app.revocationListSize}") int expectedSize,
+                             @Value("${oc.app.statelessJwtExpirationMs}") long userRevocationTtlMs) {
+    this.expectedSize = expectedSize;
+    this.userRevocationTtlMs = userRevocationTtlMs;
+    this.filter = new BloomFilter(expectedSize, FALSE_POSITIVE_RATE);
+  }
+
+  public void revoke(String username) {
+    revoke(username, System.currentTimeMillis());
+  }
+
+  // Revocations of the same user keep the latest time
+  public synchronized void revoke(String username, long revokedAt) {
+    revokedUsers.merge(username, revokedAt, Math::max);
+    filter.put(username);
+  }
+
+  public synchronized void revokeToken(String jti, Date expiration) {
+    if (jti == null || expiration == null) {
+      return;
+    }
+
+    revokedTokens.put(jti, expiration.getTime());
+    filter.put(jti);
+  }
+
+  public boolean isRevoked(Claims claims) {
+    return isTokenRevoked(claims.getId()) || isRevoked(claims.getSubject(), claims.getIssuedAt());
+  }
+
+  public boolean isTokenRevoked(String jti) {
+    return jti != null && filter.mightContain(jti) && revokedTokens.containsKey(jti);
+  }
+
+  /**
+   * Whether a token for this user issued at {@code issuedAt} has been revoked. {@code iat} only has
+   * second precision, so a token issued within the same second as the revocation counts as revoked.
+   */
+  public boolean isRevoked(String username, Date issuedAt) {
+    if (username == null || !filter.mightContain(username)) {
+      return false;
+    }
+
+    Long revoked = revokedUsers.get(username);
+    if (revoked == null || revoked + userRevocationTtlMs < System.currentTimeMillis()) {
+      return false;
+    }
+
+    return issuedAt == null || issuedAt.getTime() <= revoked;
+  }
+
+  public int size() {
+    return revokedTokens.size() + revokedUsers.size();
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.revocationPurgeMs}")
+  public synchronized void purgeExpired() {
+    long now = System.currentTimeMillis();
+    revokedTokens.values().removeIf(expiration -> expiration < now);
+    revokedUsers.values().removeIf(revokedAt -> revokedAt + userRevocationTtlMs < now);
+
+    // Writers are serialized, lookups keep using the old filter until the new one is complete
+    BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, size()), FALSE_POSITIVE_RATE);
+    revokedTokens.keySet().forEach(rebuilt::put);
+    revokedUsers.keySet().forEach(rebuilt::put);
+    filter = rebuilt;
+  }
+}
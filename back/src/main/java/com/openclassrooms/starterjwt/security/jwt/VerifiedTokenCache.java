@@ -0,0 +1,36 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.cache.ExpiringCache;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Claims of recently verified tokens, keyed by the SHA-256 digest of the token so raw bearer
+ * tokens are never kept in memory. Entries never outlive the token expiration.
+ */
+@Component
+public class VerifiedTokenCache extends ExpiringCache<String, Claims> {
+  public VerifiedTokenCache(@Value("${oc.app.jwtCacheSize}") int maxSize,
+                            @Value("${oc.app.jwtCacheTtlMs}") long ttlMs) {
+    super(maxSize, ttlMs);
+  }
+
+  public Claims getVerified(String token) {
+    return get(TokenDigests.sha256(token));
+  }
+
+  public void putVerified(String token, Claims claims) {
+    if (claims.getExpiration() == null) {
+      return;
+    }
+
+    put(TokenDigests.sha256(token), claims, claims.getExpiration().getTime());
+  }
+
+  public void invalidateToken(String token) {
+    invalidate(TokenDigests.sha256(token));
+  }
+}
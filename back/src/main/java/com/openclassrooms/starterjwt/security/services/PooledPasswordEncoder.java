@@ -0,0 +1,104 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs the delegate encoder on a small dedicated pool so password hashing can never use more than
+ * {@code threads} CPUs. When the pool and its queue are full the request is rejected with a 429
+ * instead of piling up request threads that every other endpoint needs.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder, DisposableBean {
+  private static final String METRIC_PREFIX = "password.hashing";
+
+  private final PasswordEncoder delegate;
+
+  private final ThreadPoolExecutor executor;
+
+  private final long timeoutMs;
+
+  private final Counter rejected;
+
+  public PooledPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs,
+                               MeterRegistry meterRegistry) {
+    BlockingQueue<Runnable> queue = queueCapacity > 0
+        ? new ArrayBlockingQueue<>(queueCapacity)
+        : new SynchronousQueue<>();
+
+    this.delegate = delegate;
+    this.timeoutMs = timeoutMs;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+        new CustomizableThreadFactory("password-hashing-"), new ThreadPoolExecutor.AbortPolicy());
+    this.rejected = Counter.builder(METRIC_PREFIX + ".rejected")
+        .description("Password hashing requests rejected because the pool was saturated")
+        .register(meterRegistry);
+
+    new ExecutorServiceMetrics(executor, METRIC_PREFIX, Tags.empty()).bindTo(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  private <T> T submit(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new TooManyRequestsException();
+    }
+
+    try {
+      return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      rejected.increment();
+      throw new TooManyRequestsException();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.cache.ExpiringCache;
+import com.openclassrooms.starterjwt.events.UserDeletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class PrincipalCache extends ExpiringCache<String, UserDetails> {
+  public PrincipalCache(@Value("${oc.app.principalCacheSize}") int maxSize,
+                        @Value("${oc.app.principalCacheTtlMs}") long ttlMs) {
+    super(maxSize, ttlMs);
+  }
+
+  // After the commit: evicted any earlier, a request in between would load the still committed user again
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    this.invalidate(event.getEmail());
+  }
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.UnauthorizedException;
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenDigests;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final long refreshTokenExpirationMs;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${oc.app.refreshTokenExpirationMs}") long refreshTokenExpirationMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenExpirationMs = refreshTokenExpirationMs;
+    }
+
+    public String issue(Long userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        this.secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        this.refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(TokenDigests.sha256(token))
+                .userId(userId)
+                .expiresAt(LocalDateTime.now().plusNanos(this.refreshTokenExpirationMs * 1_000_000L))
+                .build());
+
+        return token;
+    }
+
+    /**
+     * Consumes the refresh token and issues its replacement. Tokens are single use: the conditional
+     * delete lets only one of two concurrent refreshes with the same token succeed.
+     */
+    @Transactional
+    public Rotation rotate(String token) {
+        RefreshToken current = this.refreshTokenRepository.findByTokenHash(TokenDigests.sha256(token))
+                .orElseThrow(UnauthorizedException::new);
+
+        if (this.refreshTokenRepository.deleteEntry(current.getId()) == 0
+                || current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new UnauthorizedException();
+        }
+
+        return new Rotation(current.getUserId(), this.issue(current.getUserId()));
+    }
+
+    @Transactional
+    public void revoke(String token) {
+        this.refreshTokenRepository.deleteByTokenHash(TokenDigests.sha256(token));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        this.refreshTokenRepository.deleteByUser(userId);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${oc.app.revocationPurgeMs}")
+    public void purgeExpired() {
+        this.refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rotation {
+        private final Long userId;
+
+        private final String refreshToken;
+    }
+}
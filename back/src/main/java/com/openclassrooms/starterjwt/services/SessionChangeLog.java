@@ -0,0 +1,141 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.models.SessionChangeTicket;
+import com.openclassrooms.starterjwt.repository.SessionChangeTicketRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbers the changes of the delta sync, one number per transaction taken from an AUTO_INCREMENT insert, so
+ * writers never wait for each other. Numbers commit out of order: readers only go up to {@link #last()}, below
+ * the first number not committed yet, so a client resuming after the highest number it has seen misses nothing.
+ * A transaction that does not commit fills its number right away; only one lost with its instance holds readers
+ * back, for {@code oc.app.sessionChangeSettleMs}, which must exceed the longest writing transaction.
+ */
+@Log4j2
+@Service
+public class SessionChangeLog {
+    public static final int SCAN_SIZE = 500;
+
+    private final SessionChangeTicketRepository ticketRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final TransactionTemplate fillTemplate;
+
+    private final long settleMs;
+
+    // Every number up to it is committed or filled
+    private final AtomicLong settled = new AtomicLong();
+
+    public SessionChangeLog(SessionChangeTicketRepository ticketRepository,
+                            SessionRepository sessionRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${oc.app.sessionChangeSettleMs}") long settleMs) {
+        this.ticketRepository = ticketRepository;
+        this.sessionRepository = sessionRepository;
+        this.fillTemplate = new TransactionTemplate(transactionManager);
+        this.fillTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.settleMs = settleMs;
+    }
+
+    // The number of the current transaction, taken on its first change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Ticket) {
+                return ((Ticket) synchronization).seq;
+            }
+        }
+
+        long seq = this.ticketRepository.save(SessionChangeTicket.builder().createdAt(LocalDateTime.now()).build()).getSeq();
+        TransactionSynchronizationManager.registerSynchronization(new Ticket(seq));
+        return seq;
+    }
+
+    // Synchronous, so it runs in the transaction that published the event
+    @EventListener
+    @Transactional
+    public void onSessionChanged(SessionChangedEvent event) {
+        if (!event.getSessionIds().isEmpty()) {
+            this.sessionRepository.stampChanges(event.getSessionIds(), this.next());
+        }
+    }
+
+    // Highest number whose changes are all committed: a missing number is skipped once the number after it is
+    // older than the settle time, as the missing one was taken even earlier
+    @Transactional(readOnly = true)
+    public long last() {
+        LocalDateTime cutoff = this.cutoff();
+        long last = this.settled.get();
+        List<SessionChangeTicket> tickets;
+
+        do {
+            tickets = this.ticketRepository.findAfter(last, PageRequest.of(0, SCAN_SIZE));
+            for (SessionChangeTicket ticket : tickets) {
+                if (ticket.getSeq() != last + 1 && ticket.getCreatedAt().isAfter(cutoff)) {
+                    return this.settled.accumulateAndGet(last, Math::max);
+                }
+                last = ticket.getSeq();
+            }
+        } while (tickets.size() == SCAN_SIZE);
+
+        return this.settled.accumulateAndGet(last, Math::max);
+    }
+
+    // The newest settled ticket stays: a scan starting below it knows from its age that the numbers before it settled
+    @Transactional
+    @Scheduled(fixedDelayString = "${oc.app.sessionDeletionPurgeMs}")
+    public void purgeSettled() {
+        Long lastSettled = this.ticketRepository.findLastSeqBefore(this.cutoff());
+        if (lastSettled != null) {
+            this.ticketRepository.deleteBefore(lastSettled);
+        }
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minusNanos(this.settleMs * 1_000_000L);
+    }
+
+    private void fill(long seq) {
+        try {
+            this.fillTemplate.executeWithoutResult(status -> this.ticketRepository.fill(seq, LocalDateTime.now()));
+        } catch (DataAccessException e) {
+            // Committed after all, or readers wait until it settles
+            log.warn("Could not fill session change number {}", seq, e);
+        }
+    }
+
+    private class Ticket implements TransactionSynchronization {
+        private final long seq;
+
+        private Ticket(long seq) {
+            this.seq = seq;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+                SessionChangeLog.this.fill(this.seq);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class SessionExportService {
+    private static final String[] CSV_HEADER = {
+            "id", "name", "date", "duration", "teacher_id", "description", "capacity", "seats_taken", "users", "created_at", "updated_at"
+    };
+
+    private final SessionService sessionService;
+
+    private final SessionMapper sessionMapper;
+
+    private final JsonFactory jsonFactory;
+
+    private final ObjectWriter rowWriter;
+
+    public SessionExportService(SessionService sessionService, SessionMapper sessionMapper, ObjectMapper objectMapper) {
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        // Flushed once per chunk instead of after every row
+        this.rowWriter = objectMapper.writerFor(SessionDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void writeNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = this.jsonFactory.createGenerator(out)) {
+            // Rows end with a newline, not the default space between root values
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+
+            this.sessionService.exportAll((sessions, participants) -> {
+                for (SessionDto session : this.sessionMapper.toDto(sessions, participants)) {
+                    this.rowWriter.writeValue(generator, session);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            });
+        }
+    }
+
+    public void writeCsv(OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writeCsvRow(writer, CSV_HEADER);
+
+            this.sessionService.exportAll((sessions, participants) -> {
+                for (SessionDto session : this.sessionMapper.toDto(sessions, participants)) {
+                    writeCsvRow(writer,
+                            value(session.getId()),
+                            text(session.getName()),
+                            value(session.getDate()),
+                            value(session.getDuration()),
+                            value(session.getTeacher_id()),
+                            text(session.getDescription()),
+                            value(session.getCapacity()),
+                            value(session.getSeatsTaken()),
+                            users(session.getUsers()),
+                            value(session.getCreatedAt()),
+                            value(session.getUpdatedAt()));
+                }
+                writer.flush();
+            });
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, String... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(cells[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: quote cells holding a separator, a quote or a line break and double inner quotes
+    private static String escape(String cell) {
+        if (cell.indexOf(',') < 0 && cell.indexOf('"') < 0 && cell.indexOf('\n') < 0 && cell.indexOf('\r') < 0) {
+            return cell;
+        }
+
+        return '"' + cell.replace("\"", "\"\"") + '"';
+    }
+
+    // Free text opened in a spreadsheet must not be evaluated as a formula
+    private static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+
+        return "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+    }
+
+    private static String value(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        return value instanceof Date ? ((Date) value).toInstant().toString() : value.toString();
+    }
+
+    private static String users(List<Long> users) {
+        if (users == null) {
+            return "";
+        }
+
+        return users.stream().map(String::valueOf).collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,454 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.payload.response.SessionImportResponse;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.schedule.IntervalTree;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Log4j2
+public class SessionImportService {
+    private static final String INSERT_SESSION = "insert into SESSIONS " +
+            "(name, description, date, duration, teacher_id, capacity, seats_taken, created_at, updated_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PARTICIPANT = "insert into PARTICIPATE (session_id, user_id) values (?, ?)";
+
+    private static final List<String> CSV_REQUIRED_COLUMNS = Arrays.asList("name", "date", "teacher_id", "description");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TeacherRepository teacherRepository;
+
+    private final UserRepository userRepository;
+
+    private final TeacherSchedule teacherSchedule;
+
+    private final Validator validator;
+
+    private final ObjectReader rowReader;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int chunkSize;
+
+    public SessionImportService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                TeacherRepository teacherRepository,
+                                UserRepository userRepository,
+                                TeacherSchedule teacherSchedule,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${oc.app.sessionImportChunkSize}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.teacherRepository = teacherRepository;
+        this.userRepository = userRepository;
+        this.teacherSchedule = teacherSchedule;
+        this.validator = validator;
+        this.rowReader = objectMapper.readerFor(SessionDto.class);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public SessionImportResponse importNdjson(InputStream in) throws IOException {
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            try {
+                run.add(row, this.rowReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                run.reject(row, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        return run.finish();
+    }
+
+    // Same columns as the CSV export, id, seats_taken and timestamps are ignored
+    public SessionImportResponse importCsv(InputStream in) throws IOException {
+        ImportRun run = new ImportRun();
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return run.finish();
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        List<String> missing = CSV_REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new BadRequestException("Missing CSV columns: " + missing);
+        }
+
+        List<String> record;
+        long row = 0;
+        while ((record = readCsvRecord(reader)) != null) {
+            row++;
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+
+            try {
+                run.add(row, toDto(record, columns));
+            } catch (IllegalArgumentException e) {
+                run.reject(row, e.getMessage());
+            }
+        }
+
+        return run.finish();
+    }
+
+    private List<Long> insert(List<PendingRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // IDENTITY ids rule out Hibernate insert batching, plain JDBC batches still return the generated keys
+        List<Long> ids = this.jdbcTemplate.execute(
+                connection -> connection.prepareStatement(INSERT_SESSION, Statement.RETURN_GENERATED_KEYS),
+                (PreparedStatement statement) -> {
+                    for (PendingRow row : rows) {
+                        statement.setString(1, row.session.getName());
+                        statement.setString(2, row.session.getDescription());
+                        statement.setTimestamp(3, new Timestamp(row.session.getDate().getTime()));
+                        statement.setInt(4, row.session.getDuration());
+                        statement.setLong(5, row.session.getTeacher_id());
+                        statement.setObject(6, row.session.getCapacity(), Types.INTEGER);
+                        statement.setInt(7, row.users.size());
+                        statement.setTimestamp(8, now);
+                        statement.setTimestamp(9, now);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    List<Long> keys = new ArrayList<>(rows.size());
+                    try (ResultSet generated = statement.getGeneratedKeys()) {
+                        while (generated.next()) {
+                            keys.add(generated.getLong(1));
+                        }
+                    }
+                    return keys;
+                });
+
+        if (ids == null || ids.size() != rows.size()) {
+            throw new IncorrectResultSizeDataAccessException("Generated keys do not match the inserted sessions",
+                    rows.size(), ids != null ? ids.size() : 0);
+        }
+
+        List<Object[]> participants = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            for (Long userId : rows.get(i).users) {
+                participants.add(new Object[]{ids.get(i), userId});
+            }
+        }
+        if (!participants.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(INSERT_PARTICIPANT, participants);
+        }
+
+        return ids;
+    }
+
+    private static SessionDto toDto(List<String> record, Map<String, Integer> columns) {
+        SessionDto session = new SessionDto();
+        session.setName(text(cell(record, columns, "name")));
+        session.setDate(parse(record, columns, "date", value -> Date.from(Instant.parse(value))));
+        session.setDuration(parse(record, columns, "duration", Integer::valueOf));
+        session.setTeacher_id(parse(record, columns, "teacher_id", Long::valueOf));
+        session.setDescription(text(cell(record, columns, "description")));
+        session.setCapacity(parse(record, columns, "capacity", Integer::valueOf));
+        session.setUsers(parse(record, columns, "users", value -> Arrays.stream(value.trim().split("\\s+"))
+                .map(Long::valueOf)
+                .collect(Collectors.toList())));
+        return session;
+    }
+
+    private static String cell(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index != null && index < record.size() ? record.get(index) : null;
+    }
+
+    private static <T> T parse(List<String> record, Map<String, Integer> columns, String column, Function<String, T> parser) {
+        String value = cell(record, columns, column);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    // Undoes the formula guard of the CSV export
+    private static String text(String value) {
+        if (value != null && value.length() > 1 && value.charAt(0) == '\'' && "=+-@".indexOf(value.charAt(1)) >= 0) {
+            return value.substring(1);
+        }
+
+        return value;
+    }
+
+    // RFC 4180 record: quoted cells may hold separators, doubled quotes and line breaks
+    private static List<String> readCsvRecord(Reader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                cell.append((char) c);
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                cell.append((char) c);
+            }
+            c = reader.read();
+        }
+        cells.add(cell.toString());
+
+        return cells;
+    }
+
+    private static Date end(PendingRow row) {
+        return new Date(row.session.getDate().getTime() + row.session.getDuration() * 60_000L);
+    }
+
+    private static String describe(ConstraintViolation<SessionDto> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    private static class PendingRow {
+        private final long row;
+
+        private final SessionDto session;
+
+        private final List<Long> users;
+
+        PendingRow(long row, SessionDto session, List<Long> users) {
+            this.row = row;
+            this.session = session;
+            this.users = users;
+        }
+    }
+
+    // Rows are validated as they are read and written in chunks, each chunk in its own transaction
+    private class ImportRun {
+        private final List<PendingRow> pending = new ArrayList<>();
+
+        private final List<Long> created = new ArrayList<>();
+
+        private final List<SessionImportResponse.RowError> errors = new ArrayList<>();
+
+        // Rows of this import already accepted, so two rows cannot book the same teacher at once either
+        private final Map<Long, IntervalTree> booked = new HashMap<>();
+
+        void add(long row, SessionDto session) {
+            if (session == null) {
+                this.reject(row, "Empty row");
+                return;
+            }
+
+            List<String> messages = validator.validate(session).stream()
+                    .map(SessionImportService::describe)
+                    .sorted()
+                    .collect(Collectors.toList());
+            List<Long> users = session.getUsers() != null
+                    ? new ArrayList<>(new LinkedHashSet<>(session.getUsers()))
+                    : Collections.emptyList();
+            if (users.contains(null)) {
+                messages.add("users: must not contain null");
+            }
+            if (!messages.isEmpty()) {
+                this.errors.add(new SessionImportResponse.RowError(row, messages));
+                return;
+            }
+
+            if (session.getDuration() == null) {
+                session.setDuration(SessionService.DEFAULT_DURATION);
+            }
+            this.pending.add(new PendingRow(row, session, users));
+            if (this.pending.size() >= chunkSize) {
+                this.flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            this.errors.add(new SessionImportResponse.RowError(row, Collections.singletonList(message)));
+        }
+
+        SessionImportResponse finish() {
+            this.flush();
+            return new SessionImportResponse(this.created, this.errors);
+        }
+
+        private void checkAvailable(PendingRow row, List<String> messages) {
+            IntervalTree imported = this.booked.computeIfAbsent(row.session.getTeacher_id(), id -> new IntervalTree());
+            List<IntervalTree.Interval> overlapping = imported.overlapping(row.session.getDate().getTime(), end(row).getTime());
+            if (!overlapping.isEmpty()) {
+                messages.add("Teacher is already booked by row " + overlapping.get(0).getId());
+                return;
+            }
+            imported.insert(row.session.getDate().getTime(), end(row).getTime(), row.row);
+        }
+
+        // Under the teachers' row locks, so no session of theirs is booked between this check and the insert
+        private List<PendingRow> available(List<PendingRow> rows, List<SessionImportResponse.RowError> conflicts) {
+            teacherSchedule.lock(rows.stream().map(row -> row.session.getTeacher_id()).collect(Collectors.toSet()));
+
+            List<PendingRow> available = new ArrayList<>();
+            for (PendingRow row : rows) {
+                Optional<Long> conflict = teacherSchedule.findConflict(row.session.getTeacher_id(), null, row.session.getDate(), end(row));
+                if (conflict.isPresent()) {
+                    this.booked.get(row.session.getTeacher_id()).remove(row.session.getDate().getTime(), row.row);
+                    conflicts.add(new SessionImportResponse.RowError(row.row,
+                            Collections.singletonList("Teacher is already booked for session " + conflict.get())));
+                } else {
+                    available.add(row);
+                }
+            }
+
+            return available;
+        }
+
+        private void flush() {
+            if (this.pending.isEmpty()) {
+                return;
+            }
+
+            // One lookup per chunk for the referenced teachers and participants
+            Set<Long> teachers = new HashSet<>(teacherRepository.findExistingIds(this.pending.stream()
+                    .map(row -> row.session.getTeacher_id())
+                    .collect(Collectors.toSet())));
+            Set<Long> userIds = this.pending.stream().flatMap(row -> row.users.stream()).collect(Collectors.toSet());
+            Set<Long> users = userIds.isEmpty() ? Collections.emptySet() : new HashSet<>(userRepository.findExistingIds(userIds));
+
+            List<PendingRow> valid = new ArrayList<>();
+            for (PendingRow row : this.pending) {
+                List<String> messages = new ArrayList<>();
+                if (!teachers.contains(row.session.getTeacher_id())) {
+                    messages.add("Unknown teacher id: " + row.session.getTeacher_id());
+                }
+                List<Long> unknown = row.users.stream().filter(id -> !users.contains(id)).collect(Collectors.toList());
+                if (!unknown.isEmpty()) {
+                    messages.add("Unknown user ids: " + unknown);
+                }
+                Integer capacity = row.session.getCapacity();
+                if (capacity != null && row.users.size() > capacity) {
+                    messages.add("More participants than capacity");
+                }
+                if (messages.isEmpty()) {
+                    this.checkAvailable(row, messages);
+                }
+
+                if (messages.isEmpty()) {
+                    valid.add(row);
+                } else {
+                    this.errors.add(new SessionImportResponse.RowError(row.row, messages));
+                }
+            }
+            this.pending.clear();
+
+            if (valid.isEmpty()) {
+                return;
+            }
+
+            List<SessionImportResponse.RowError> conflicts = new ArrayList<>();
+            try {
+                List<Long> ids = transactionTemplate.execute(status -> {
+                    List<PendingRow> available = this.available(valid, conflicts);
+                    if (available.isEmpty()) {
+                        return Collections.<Long>emptyList();
+                    }
+
+                    List<Long> inserted = insert(available);
+                    // One event for the chunk, in its transaction: the delta sync stamps the new sessions with one
+                    // number in a single update, the listeners after commit handle them together
+                    eventPublisher.publishEvent(new SessionChangedEvent(inserted));
+                    return inserted;
+                });
+                this.created.addAll(Objects.requireNonNull(ids));
+                this.errors.addAll(conflicts);
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Session import chunk rolled back", e);
+                valid.forEach(row -> this.reject(row.row, "Not imported, the chunk was rolled back"));
+            }
+        }
+    }
+}
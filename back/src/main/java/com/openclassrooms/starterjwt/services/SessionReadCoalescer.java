@@ -0,0 +1,52 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.cache.SingleFlight;
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Single-flight for the reads behind {@code GET /api/session/{id}}: concurrent requests for the
+ * same session share one database load, memoized for {@code oc.app.sessionReadMemoMs}.
+ */
+@Component
+public class SessionReadCoalescer {
+    private final SingleFlight<Long, SessionSummary> summaries;
+
+    private final SingleFlight<Long, List<Long>> participants;
+
+    public SessionReadCoalescer(@Value("${oc.app.sessionReadMemoSize}") int memoSize,
+                                @Value("${oc.app.sessionReadMemoMs}") long memoMs) {
+        this.summaries = new SingleFlight<>(memoSize, memoMs);
+        this.participants = new SingleFlight<>(memoSize, memoMs);
+    }
+
+    public SessionSummary getSummary(Long id, Function<Long, SessionSummary> loader) {
+        return this.summaries.get(id, loader);
+    }
+
+    public List<Long> getParticipantIds(Long id, Function<Long, List<Long>> loader) {
+        return this.participants.get(id, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        event.getSessionIds().forEach(id -> {
+            this.summaries.invalidate(id);
+            this.participants.invalidate(id);
+        });
+    }
+
+    public long getLoadCount() {
+        return this.summaries.getLoadCount() + this.participants.getLoadCount();
+    }
+
+    public long getSharedCount() {
+        return this.summaries.getSharedCount() + this.participants.getSharedCount();
+    }
+}
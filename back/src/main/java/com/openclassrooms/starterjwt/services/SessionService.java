@@ -1,78 +1,334 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.ParticipationStatus;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.pagination.SessionCursor;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SessionService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int EXPORT_CHUNK_SIZE = 500;
+    public static final int DEFAULT_DURATION = 60;
+
+    private static final Date MIN_DATE = new Date(0L);
+    private static final Date MAX_DATE = new Date(253402214400000L); // 9999-12-31T00:00:00Z
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final SessionDeletionRepository sessionDeletionRepository;
+
+    private final SessionChangeLog sessionChangeLog;
+
+    private final SessionReadCoalescer readCoalescer;
+
+    private final TeacherSchedule teacherSchedule;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter participateConflicts;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          WaitlistRepository waitlistRepository,
+                          SessionDeletionRepository sessionDeletionRepository,
+                          SessionChangeLog sessionChangeLog,
+                          SessionReadCoalescer readCoalescer,
+                          TeacherSchedule teacherSchedule,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.sessionDeletionRepository = sessionDeletionRepository;
+        this.sessionChangeLog = sessionChangeLog;
+        this.readCoalescer = readCoalescer;
+        this.teacherSchedule = teacherSchedule;
+        this.eventPublisher = eventPublisher;
+        this.participateConflicts = Counter.builder("session.participate.conflicts")
+                .description("Participation requests rejected because the user already participates or waits")
+                .register(meterRegistry);
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        session.setSeatsTaken(seatsTaken(session));
+        defaultDuration(session);
+        Session saved = this.teacherSchedule.book(session, () -> this.sessionRepository.save(session));
+        this.eventPublisher.publishEvent(new SessionChangedEvent(saved.getId()));
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
+        this.waitlistRepository.deleteBySession(id);
         this.sessionRepository.deleteById(id);
+        // Tombstone for the delta sync, committed with the delete
+        this.sessionDeletionRepository.save(SessionDeletion.builder()
+                .sessionId(id)
+                .deletedAt(LocalDateTime.now())
+                .changeSeq(this.sessionChangeLog.next())
+                .build());
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id));
     }
 
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    public Slice<SessionSummary> findPage(SessionCursor cursor, Date from, Date to, Long teacherId, Integer limit) {
+        // Without a range the listing starts with the upcoming sessions; a cursor alone keeps paging from where it is,
+        // even once its session has started
+        Date lowerBound = from != null ? from : cursor != null ? MIN_DATE : new Date();
+        Date upperBound = to != null ? to : MAX_DATE;
+
+        // A cursor pointing before the requested range must not widen it
+        Date afterDate = lowerBound;
+        Long afterId = 0L;
+        if (cursor != null && !cursor.getDate().before(lowerBound)) {
+            afterDate = cursor.getDate();
+            afterId = cursor.getId();
+        }
+
+        Pageable pageable = PageRequest.of(0, pageSize(limit));
+        if (teacherId != null) {
+            return this.sessionRepository.findPageByTeacher(teacherId, afterDate, afterId, upperBound, pageable);
+        }
+
+        return this.sessionRepository.findPage(afterDate, afterId, upperBound, pageable);
+    }
+
+    // Upcoming sessions soonest first, or past ones latest first; the cursor continues within the same list
+    public Slice<SessionSummary> findPageByParticipant(Long userId, boolean past, SessionCursor cursor, Integer limit) {
+        Date now = new Date();
+        Pageable pageable = PageRequest.of(0, pageSize(limit));
+
+        if (past) {
+            if (cursor != null && cursor.getDate().before(now)) {
+                return this.sessionRepository.findPageByParticipantBefore(userId, cursor.getDate(), cursor.getId(), pageable);
+            }
+            return this.sessionRepository.findPageByParticipantBefore(userId, now, 0L, pageable);
+        }
+
+        if (cursor != null && !cursor.getDate().before(now)) {
+            return this.sessionRepository.findPageByParticipantAfter(userId, cursor.getDate(), cursor.getId(), pageable);
+        }
+        return this.sessionRepository.findPageByParticipantAfter(userId, now, 0L, pageable);
+    }
+
+    // The cursor stays open while each chunk is written, so memory does not grow with the catalog
+    @Transactional(readOnly = true)
+    public void exportAll(ExportChunkHandler handler) throws IOException {
+        try (Stream<SessionSummary> sessions = this.sessionRepository.streamAll()) {
+            Iterator<SessionSummary> rows = sessions.iterator();
+            List<SessionSummary> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE || !rows.hasNext()) {
+                    handler.accept(chunk, this.findParticipantIds(
+                            chunk.stream().map(SessionSummary::getId).collect(Collectors.toList())));
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    public SessionSummary getSummaryById(Long id) {
+        return this.readCoalescer.getSummary(id, key -> this.sessionRepository.findSummaryById(key).orElse(null));
+    }
+
+    public List<Long> findParticipantIds(Long sessionId) {
+        // Shared between concurrent callers, so read-only
+        return this.readCoalescer.getParticipantIds(sessionId, key -> Collections.unmodifiableList(
+                this.findParticipantIds(Collections.singletonList(key)).getOrDefault(key, Collections.emptyList())));
+    }
+
+    public Map<Long, List<Long>> findParticipantIds(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return this.sessionRepository.findParticipants(sessionIds).stream()
+                .collect(Collectors.groupingBy(row -> ((Number) row[0]).longValue(),
+                        Collectors.mapping(row -> ((Number) row[1]).longValue(), Collectors.toList())));
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    @Transactional
     public Session update(Long id, Session session) {
         session.setId(id);
-        return this.sessionRepository.save(session);
+        session.setSeatsTaken(seatsTaken(session));
+        // Conditional GETs rely on updated_at, a roster-only change must still move it
+        session.setUpdatedAt(LocalDateTime.now());
+        defaultDuration(session);
+        Session saved = this.teacherSchedule.book(session, () -> this.sessionRepository.save(session));
+        // Joins committed since the client read the session are still in PARTICIPATE: the count comes from there
+        this.sessionRepository.recountSeats(id);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id));
+
+        // The new roster or a raised capacity may have freed seats for waitlisted users
+        this.fillFromWaitlist(id);
+
+        return this.sessionRepository.findById(id).orElse(saved);
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+    @Transactional
+    public ParticipationStatus participate(Long id, Long userId) {
+        if (!this.sessionRepository.lockById(id).isPresent() || !this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        // The conditional update is the only capacity check, the session row is locked until commit
+        if (this.sessionRepository.reserveSeat(id) == 1) {
+            try {
+                this.sessionRepository.addParticipant(id, userId);
+            } catch (DataIntegrityViolationException e) {
+                // PARTICIPATE(session_id, user_id) is unique: the user already participates,
+                // rolling back also gives the seat back
+                this.participateConflicts.increment();
+                throw new BadRequestException();
+            }
+            // A waitlisted user taking a freed seat directly must not be promoted later on
+            this.waitlistRepository.deleteEntry(id, userId);
+
+            this.eventPublisher.publishEvent(new SessionChangedEvent(id));
+            return ParticipationStatus.PARTICIPATING;
+        }
+
+        if (this.sessionRepository.countParticipation(id, userId) > 0) {
+            this.participateConflicts.increment();
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
+        try {
+            this.waitlistRepository.save(WaitlistEntry.builder().sessionId(id).userId(userId).build());
+        } catch (DataIntegrityViolationException e) {
+            this.participateConflicts.increment();
+            throw new BadRequestException();
+        }
 
-        this.sessionRepository.save(session);
+        return ParticipationStatus.WAITLISTED;
     }
 
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        // Locked before anything is read: a concurrent join is either committed, and its waitlist entry gets
+        // the freed seat, or it waits for this leave and takes the seat itself
+        if (!this.sessionRepository.lockById(id).isPresent()) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
-            throw new BadRequestException();
+        if (this.sessionRepository.removeParticipant(id, userId) == 0) {
+            // Not in the roster, but leaving the waitlist is allowed too
+            if (this.waitlistRepository.deleteEntry(id, userId) == 0) {
+                throw new BadRequestException();
+            }
+            return;
+        }
+
+        // The freed seat goes to the head of the waitlist, if any
+        if (this.promoteNext(id)) {
+            this.sessionRepository.touch(id);
+        } else {
+            this.sessionRepository.releaseSeat(id);
+        }
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id));
+    }
+
+    private int fillFromWaitlist(Long id) {
+        int promoted = 0;
+        while (this.sessionRepository.reserveSeat(id) == 1) {
+            if (!this.promoteNext(id)) {
+                this.sessionRepository.releaseSeat(id);
+                break;
+            }
+            promoted++;
+        }
+
+        return promoted;
+    }
+
+    // Moves the oldest waitlisted user into the roster, the caller must already hold the seat
+    private boolean promoteNext(Long id) {
+        Optional<WaitlistEntry> next;
+        while ((next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id)).isPresent()) {
+            WaitlistEntry entry = next.get();
+            this.waitlistRepository.deleteEntry(entry.getId());
+
+            if (this.sessionRepository.countParticipation(id, entry.getUserId()) == 0) {
+                this.sessionRepository.addParticipant(id, entry.getUserId());
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int seatsTaken(Session session) {
+        int seatsTaken = session.getUsers() != null ? session.getUsers().size() : 0;
+        if (session.getCapacity() != null && seatsTaken > session.getCapacity()) {
+            throw new BadRequestException("More participants than capacity");
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        return seatsTaken;
+    }
+
+    private static void defaultDuration(Session session) {
+        if (session.getDuration() == null) {
+            session.setDuration(DEFAULT_DURATION);
+        }
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
 
-        this.sessionRepository.save(session);
+    @FunctionalInterface
+    public interface ExportChunkHandler {
+        void accept(List<SessionSummary> sessions, Map<Long, List<Long>> participants) throws IOException;
     }
 }
@@ -0,0 +1,154 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.GoneException;
+import com.openclassrooms.starterjwt.repository.SessionChangeSequenceRepository;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionChange;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class SessionSyncService {
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 500;
+
+    private final SessionRepository sessionRepository;
+
+    private final SessionDeletionRepository sessionDeletionRepository;
+
+    private final SessionChangeSequenceRepository changeSequenceRepository;
+
+    private final SessionChangeLog sessionChangeLog;
+
+    private final long retentionMs;
+
+    public SessionSyncService(SessionRepository sessionRepository,
+                              SessionDeletionRepository sessionDeletionRepository,
+                              SessionChangeSequenceRepository changeSequenceRepository,
+                              SessionChangeLog sessionChangeLog,
+                              @Value("${oc.app.sessionDeletionRetentionMs}") long retentionMs) {
+        this.sessionRepository = sessionRepository;
+        this.sessionDeletionRepository = sessionDeletionRepository;
+        this.changeSequenceRepository = changeSequenceRepository;
+        this.sessionChangeLog = sessionChangeLog;
+        this.retentionMs = retentionMs;
+    }
+
+    /**
+     * The first changes after the change number since: sessions created or updated and sessions deleted, at most
+     * limit of them unless a single transaction made more. The caller passes until back as since, and calls again
+     * at once while hasMore is set. Without since nothing is returned but the current number, to take before
+     * loading the full list.
+     */
+    @Transactional(readOnly = true)
+    public Changes findChanges(Long since, Integer limit) {
+        long last = this.sessionChangeLog.last();
+        if (since == null) {
+            return new Changes(Collections.emptyList(), Collections.emptyList(), last, false);
+        }
+        if (since < this.changeSequenceRepository.findPurgedSeq()) {
+            // Tombstones after since are purged, the client has to reload the full list
+            throw new GoneException();
+        }
+
+        int size = limit(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<SessionChange> updated = this.sessionRepository.findChangesAfter(since, last, pageable);
+        List<SessionChange> deleted = this.sessionDeletionRepository.findChangesAfter(since, last, pageable);
+
+        List<SessionChange> changes = new ArrayList<>(updated);
+        changes.addAll(deleted);
+        changes.sort(Comparator.comparing(SessionChange::getChangeSeq));
+        if (changes.size() <= size) {
+            return new Changes(this.summaries(updated),
+                    deleted.stream().map(SessionChange::getSessionId).collect(Collectors.toList()),
+                    Math.max(since, last),
+                    false);
+        }
+
+        // A transaction's changes share their number and are never split: the page ends before the number of the
+        // first change left out, every lower one is complete, or holds that whole number if it fills the page alone
+        long next = changes.get(size).getChangeSeq();
+        long until = next - 1;
+        if (changes.get(0).getChangeSeq() == next) {
+            until = next;
+            updated = this.sessionRepository.findChangesAt(next);
+            deleted = this.sessionDeletionRepository.findChangesAt(next);
+        }
+
+        return new Changes(this.summaries(upTo(updated, until)),
+                upTo(deleted, until).stream().map(SessionChange::getSessionId).collect(Collectors.toList()),
+                until,
+                true);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${oc.app.sessionDeletionPurgeMs}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(this.retentionMs * 1_000_000L);
+        Long purged = this.sessionDeletionRepository.findLastChangeSeqBefore(cutoff);
+
+        this.sessionDeletionRepository.deleteOlderThan(cutoff);
+        if (purged != null) {
+            this.changeSequenceRepository.markPurged(purged);
+        }
+    }
+
+    // In change order
+    private List<SessionSummary> summaries(List<SessionChange> changes) {
+        if (changes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, SessionSummary> byId = this.sessionRepository.findSummariesByIds(
+                        changes.stream().map(SessionChange::getSessionId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(SessionSummary::getId, Function.identity()));
+
+        return changes.stream()
+                .map(change -> byId.get(change.getSessionId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static List<SessionChange> upTo(List<SessionChange> changes, long until) {
+        return changes.stream().filter(change -> change.getChangeSeq() <= until).collect(Collectors.toList());
+    }
+
+    private static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Changes {
+        private final List<SessionSummary> updated;
+
+        private final List<Long> deleted;
+
+        private final long until;
+
+        private final boolean hasMore;
+    }
+}
@@ -0,0 +1,201 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionTemplate;
+import com.openclassrooms.starterjwt.recurrence.RecurrenceRule;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionTemplateRepository;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Templates are materialized as SESSIONS rows only up to a rolling horizon ({@code oc.app.templateWindowMs} ahead),
+ * occurrences past it are computed when a range is queried.
+ */
+@Service
+@Log4j2
+public class SessionTemplateService {
+    private final SessionTemplateRepository templateRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final TeacherSchedule teacherSchedule;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final long windowMs;
+
+    private final long maxRangeMs;
+
+    public SessionTemplateService(SessionTemplateRepository templateRepository,
+                                  SessionRepository sessionRepository,
+                                  TeacherSchedule teacherSchedule,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${oc.app.templateWindowMs}") long windowMs,
+                                  @Value("${oc.app.templateMaxRangeMs}") long maxRangeMs) {
+        this.templateRepository = templateRepository;
+        this.sessionRepository = sessionRepository;
+        this.teacherSchedule = teacherSchedule;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.windowMs = windowMs;
+        this.maxRangeMs = maxRangeMs;
+    }
+
+    public List<SessionTemplate> findAll() {
+        return this.templateRepository.findAll();
+    }
+
+    public SessionTemplate getById(Long id) {
+        return this.templateRepository.findById(id).orElse(null);
+    }
+
+    @Transactional
+    public SessionTemplate create(SessionTemplate template) {
+        if (template.getTeacher() == null) {
+            throw new BadRequestException("Unknown teacher");
+        }
+        ruleOf(template);
+        startOf(template);
+
+        template.setId(null);
+        if (template.getDuration() == null) {
+            template.setDuration(SessionService.DEFAULT_DURATION);
+        }
+        template.setMaterializedUntil(null);
+        SessionTemplate saved = this.templateRepository.save(template);
+        this.materialize(saved, this.horizon());
+
+        return saved;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        // Occurrences already created stay, as plain sessions
+        this.sessionRepository.detachTemplate(id);
+        this.templateRepository.deleteById(id);
+    }
+
+    // Each template in its own transaction, so one failing template does not hold back the others
+    @Scheduled(fixedDelayString = "${oc.app.templateMaterializeMs}")
+    public void materializeDue() {
+        Date horizon = this.horizon();
+        for (Long id : this.templateRepository.findIdsMaterializedBefore(horizon)) {
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> this.templateRepository.findById(id)
+                        .ifPresent(template -> this.materialize(template, horizon)));
+            } catch (RuntimeException e) {
+                log.warn("Materializing session template {} failed", id, e);
+            }
+        }
+    }
+
+    public List<Session> findOccurrences(Date from, Date to) {
+        if (!to.after(from) || to.getTime() - from.getTime() > this.maxRangeMs) {
+            throw new BadRequestException();
+        }
+
+        List<Session> occurrences = new ArrayList<>();
+        for (SessionTemplate template : this.templateRepository.findAll()) {
+            // Whatever is before the watermark is already returned by the session queries
+            Date after = template.getMaterializedUntil() != null && template.getMaterializedUntil().after(from)
+                    ? template.getMaterializedUntil()
+                    : from;
+            for (Instant start : ruleOf(template).between(startOf(template), after.toInstant(), to.toInstant())) {
+                occurrences.add(occurrence(template, Date.from(start)));
+            }
+        }
+        occurrences.sort(Comparator.comparing(Session::getDate));
+
+        return occurrences;
+    }
+
+    // Creates the occurrences between the watermark, or now when it is behind (e.g. after downtime), and the horizon:
+    // occurrences already in the past are never created. Those already stored, by another instance or a run that
+    // failed after inserting them, are skipped so the (template_id, date) key does not abort the whole batch.
+    // Occurrences are booked like any session, one the teacher is already booked for is left out
+    private void materialize(SessionTemplate template, Date horizon) {
+        Instant now = Instant.now();
+        Instant after = template.getMaterializedUntil() != null && template.getMaterializedUntil().toInstant().isAfter(now)
+                ? template.getMaterializedUntil().toInstant()
+                : now;
+        Set<Long> stored = this.sessionRepository.findTemplateDates(template.getId(), Date.from(after), horizon).stream()
+                .map(Date::getTime)
+                .collect(Collectors.toSet());
+        List<Session> sessions = ruleOf(template).between(startOf(template), after, horizon.toInstant()).stream()
+                .filter(start -> !stored.contains(start.toEpochMilli()))
+                .map(start -> occurrence(template, Date.from(start)))
+                .collect(Collectors.toList());
+
+        List<Session> saved = new ArrayList<>();
+        for (Session session : sessions) {
+            try {
+                saved.add(this.teacherSchedule.book(session, () -> this.sessionRepository.save(session)));
+            } catch (ConflictException e) {
+                log.warn("Skipping the occurrence of session template {} on {}: {}", template.getId(), session.getDate(), e.getMessage());
+            }
+        }
+        template.setMaterializedUntil(horizon);
+        this.templateRepository.save(template);
+
+        if (!saved.isEmpty()) {
+            this.eventPublisher.publishEvent(new SessionChangedEvent(
+                    saved.stream().map(Session::getId).collect(Collectors.toList())));
+        }
+    }
+
+    private Date horizon() {
+        return new Date(System.currentTimeMillis() + this.windowMs);
+    }
+
+    private static Session occurrence(SessionTemplate template, Date date) {
+        return Session.builder()
+                .name(template.getName())
+                .description(template.getDescription())
+                .date(date)
+                .duration(template.getDuration())
+                .teacher(template.getTeacher())
+                .capacity(template.getCapacity())
+                .templateId(template.getId())
+                .build();
+    }
+
+    private static RecurrenceRule ruleOf(SessionTemplate template) {
+        try {
+            return RecurrenceRule.parse(template.getRecurrence());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static ZonedDateTime startOf(SessionTemplate template) {
+        try {
+            return template.getStartsAt().atZone(ZoneId.of(template.getTimeZone()));
+        } catch (DateTimeException e) {
+            throw new BadRequestException("Invalid time zone: " + template.getTimeZone());
+        }
+    }
+}
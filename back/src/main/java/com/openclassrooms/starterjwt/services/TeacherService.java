@@ -1,17 +1,26 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.payload.response.TeacherAvailabilityResponse;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.schedule.IntervalTree;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Service
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
-    public TeacherService(TeacherRepository teacherRepository) {
+    private final TeacherSchedule teacherSchedule;
+
+    public TeacherService(TeacherRepository teacherRepository, TeacherSchedule teacherSchedule) {
         this.teacherRepository = teacherRepository;
+        this.teacherSchedule = teacherSchedule;
     }
 
     public List<Teacher> findAll() {
@@ -21,4 +30,26 @@ public class TeacherService {
     public Teacher findById(Long id) {
         return this.teacherRepository.findById(id).orElse(null);
     }
+
+    public TeacherAvailabilityResponse findAvailability(Long id, Date from, Date to) {
+        if (!to.after(from)) {
+            throw new BadRequestException();
+        }
+
+        List<TeacherAvailabilityResponse.Booking> busy = new ArrayList<>();
+        List<TeacherAvailabilityResponse.Slot> free = new ArrayList<>();
+        long freeFrom = from.getTime();
+        for (IntervalTree.Interval booking : this.teacherSchedule.findBookings(id, from, to)) {
+            busy.add(new TeacherAvailabilityResponse.Booking(booking.getId(), new Date(booking.getStart()), new Date(booking.getEnd())));
+            if (booking.getStart() > freeFrom) {
+                free.add(new TeacherAvailabilityResponse.Slot(new Date(freeFrom), new Date(booking.getStart())));
+            }
+            freeFrom = Math.max(freeFrom, booking.getEnd());
+        }
+        if (freeFrom < to.getTime()) {
+            free.add(new TeacherAvailabilityResponse.Slot(new Date(freeFrom), to));
+        }
+
+        return new TeacherAvailabilityResponse(from, to, busy, free);
+    }
 }
@@ -0,0 +1,103 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.TokenRevocation;
+import com.openclassrooms.starterjwt.repository.TokenRevocationRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+/**
+ * Records revocations in TOKEN_REVOCATIONS so every instance enforces them: each instance applies its own
+ * revocations at once and picks up the others' within {@code oc.app.revocationSyncMs}. A sync only reads the
+ * rows past an id high-water mark, expired revocations leave the in-memory list through its own purge.
+ */
+@Service
+public class TokenRevocationService {
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final long userRevocationTtlMs;
+
+    private final long settleMs;
+
+    // Highest id seen by each sync of the last settleMs, oldest first: {time, id}
+    private final Deque<long[]> marks = new ArrayDeque<>();
+
+    // Rows up to this id are taken as read: a higher id was seen at least settleMs ago
+    private long settledId;
+
+    private long lastSeenId;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  TokenRevocationList tokenRevocationList,
+                                  @Value("${oc.app.statelessJwtExpirationMs}") long userRevocationTtlMs,
+                                  @Value("${oc.app.revocationSettleMs}") long settleMs) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenRevocationList = tokenRevocationList;
+        this.userRevocationTtlMs = userRevocationTtlMs;
+        this.settleMs = settleMs;
+    }
+
+    // Tokens of the user issued until now
+    @Transactional
+    public void revokeUser(String username) {
+        LocalDateTime now = LocalDateTime.now();
+
+        this.tokenRevocationRepository.save(TokenRevocation.builder()
+                .username(username)
+                .revokedAt(now)
+                .expiresAt(now.plusNanos(this.userRevocationTtlMs * 1_000_000L))
+                .build());
+        this.tokenRevocationList.revoke(username, Timestamp.valueOf(now).getTime());
+    }
+
+    @Transactional
+    public void revokeToken(String jti, Date expiration) {
+        if (jti == null || expiration == null) {
+            return;
+        }
+
+        this.tokenRevocationRepository.save(TokenRevocation.builder()
+                .tokenId(jti)
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(new Timestamp(expiration.getTime()).toLocalDateTime())
+                .build());
+        this.tokenRevocationList.revokeToken(jti, expiration);
+    }
+
+    // Ids are assigned at insert but committed in any order, so a row may show up below an id already seen:
+    // rows are read from the high-water mark of settleMs ago, re-applying the recent ones is harmless
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${oc.app.revocationSyncMs}")
+    public synchronized void sync() {
+        long now = System.currentTimeMillis();
+        while (!this.marks.isEmpty() && this.marks.peekFirst()[0] <= now - this.settleMs) {
+            this.settledId = this.marks.pollFirst()[1];
+        }
+
+        for (TokenRevocation revocation : this.tokenRevocationRepository.findLiveAfter(this.settledId, LocalDateTime.now())) {
+            if (revocation.getTokenId() != null) {
+                this.tokenRevocationList.revokeToken(revocation.getTokenId(), Timestamp.valueOf(revocation.getExpiresAt()));
+            } else if (revocation.getUsername() != null) {
+                this.tokenRevocationList.revoke(revocation.getUsername(), Timestamp.valueOf(revocation.getRevokedAt()).getTime());
+            }
+            this.lastSeenId = Math.max(this.lastSeenId, revocation.getId());
+        }
+        this.marks.addLast(new long[]{now, this.lastSeenId});
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${oc.app.revocationPurgeMs}")
+    public void purgeExpired() {
+        this.tokenRevocationRepository.deleteExpired(LocalDateTime.now());
+    }
+}
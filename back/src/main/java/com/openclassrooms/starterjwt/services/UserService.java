@@ -1,22 +1,58 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.events.UserDeletedEvent;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final RefreshTokenService refreshTokenService;
+
+    public UserService(UserRepository userRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       TokenRevocationService tokenRevocationService,
+                       RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
+    @Transactional
     public void delete(Long id) {
+        User user = this.findById(id);
+        this.refreshTokenService.revokeAll(id);
         this.userRepository.deleteById(id);
+
+        if (user != null) {
+            // The cached principal is evicted once the deletion is committed
+            this.eventPublisher.publishEvent(new UserDeletedEvent(user.getEmail()));
+            this.tokenRevocationService.revokeUser(user.getEmail());
+        }
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return this.userRepository.findAllById(ids);
+    }
 }
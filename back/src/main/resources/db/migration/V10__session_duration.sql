@@ -0,0 +1,3 @@
+-- Minutes; existing sessions and templates get the former implicit hour
+ALTER TABLE SESSIONS ADD COLUMN duration INT NOT NULL DEFAULT 60;
+ALTER TABLE SESSION_TEMPLATES ADD COLUMN duration INT NOT NULL DEFAULT 60;
@@ -0,0 +1,10 @@
+-- Shared by every instance, each one polls the live rows into its in-memory revocation list
+CREATE TABLE TOKEN_REVOCATIONS (
+  id INT PRIMARY KEY AUTO_INCREMENT,
+  token_id VARCHAR(36),
+  username VARCHAR(255),
+  revoked_at DATETIME(6) NOT NULL,
+  expires_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_token_revocations_expires_at ON TOKEN_REVOCATIONS (expires_at);
@@ -0,0 +1,13 @@
+-- Delta sync position of the last change of each session and of each tombstone, numbered in commit order
+ALTER TABLE SESSIONS ADD COLUMN change_seq BIGINT;
+ALTER TABLE SESSION_DELETIONS ADD COLUMN change_seq BIGINT;
+CREATE INDEX idx_sessions_change_seq ON SESSIONS (change_seq);
+CREATE INDEX idx_session_deletions_change_seq ON SESSION_DELETIONS (change_seq);
+
+CREATE TABLE SESSION_CHANGE_SEQ (
+  id INT PRIMARY KEY,
+  last_seq BIGINT NOT NULL,
+  purged_seq BIGINT NOT NULL
+);
+
+INSERT INTO SESSION_CHANGE_SEQ (id, last_seq, purged_seq) VALUES (1, 0, 0);
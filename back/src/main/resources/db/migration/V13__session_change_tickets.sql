@@ -0,0 +1,12 @@
+-- Change numbers of the delta sync come from an AUTO_INCREMENT insert, one per writing transaction, instead of
+-- the SESSION_CHANGE_SEQ counter row every writer had to lock until it committed
+CREATE TABLE SESSION_CHANGE_TICKETS (
+  seq BIGINT PRIMARY KEY AUTO_INCREMENT,
+  created_at DATETIME(6) NOT NULL
+);
+
+-- Numbering continues after the numbers already handed out; they are all committed, so the row is dated as settled
+INSERT INTO SESSION_CHANGE_TICKETS (seq, created_at)
+SELECT last_seq, '2000-01-01 00:00:00' FROM SESSION_CHANGE_SEQ WHERE last_seq > 0;
+
+ALTER TABLE SESSION_CHANGE_SEQ DROP COLUMN last_seq;
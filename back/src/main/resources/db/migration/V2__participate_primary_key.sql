@@ -0,0 +1,10 @@
+-- One row per participation: drop incomplete rows and duplicates left by concurrent participations
+CREATE TABLE PARTICIPATE_DISTINCT AS
+  SELECT DISTINCT user_id, session_id FROM PARTICIPATE WHERE user_id IS NOT NULL AND session_id IS NOT NULL;
+DELETE FROM PARTICIPATE;
+INSERT INTO PARTICIPATE (user_id, session_id) SELECT user_id, session_id FROM PARTICIPATE_DISTINCT;
+DROP TABLE PARTICIPATE_DISTINCT;
+
+ALTER TABLE PARTICIPATE MODIFY user_id INT NOT NULL;
+ALTER TABLE PARTICIPATE MODIFY session_id INT NOT NULL;
+ALTER TABLE PARTICIPATE ADD PRIMARY KEY (session_id, user_id);
@@ -0,0 +1,5 @@
+-- No capacity means unlimited; seats_taken is kept by the atomic seat reservation
+ALTER TABLE SESSIONS ADD COLUMN capacity INT;
+ALTER TABLE SESSIONS ADD COLUMN seats_taken INT NOT NULL DEFAULT 0;
+
+UPDATE SESSIONS SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE WHERE PARTICIPATE.session_id = SESSIONS.id);
@@ -0,0 +1,11 @@
+-- Users waiting for a seat of a full session, promoted in id order
+CREATE TABLE WAITLIST (
+  id INT PRIMARY KEY AUTO_INCREMENT,
+  session_id INT NOT NULL,
+  user_id INT NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE (session_id, user_id)
+);
+
+ALTER TABLE WAITLIST ADD FOREIGN KEY (user_id) REFERENCES USERS (id);
+ALTER TABLE WAITLIST ADD FOREIGN KEY (session_id) REFERENCES SESSIONS (id);
@@ -0,0 +1,11 @@
+-- Only the hash of each refresh token is stored
+CREATE TABLE REFRESH_TOKENS (
+  id INT PRIMARY KEY AUTO_INCREMENT,
+  token_hash VARCHAR(44) NOT NULL,
+  user_id INT NOT NULL,
+  expires_at TIMESTAMP NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE (token_hash)
+);
+
+ALTER TABLE REFRESH_TOKENS ADD FOREIGN KEY (user_id) REFERENCES USERS (id);
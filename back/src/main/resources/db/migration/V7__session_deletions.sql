@@ -0,0 +1,9 @@
+-- Tombstones of deleted sessions, so delta sync clients learn about deletions
+CREATE TABLE SESSION_DELETIONS (
+  id INT PRIMARY KEY AUTO_INCREMENT,
+  session_id INT NOT NULL,
+  deleted_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_sessions_updated_at ON SESSIONS (updated_at);
+CREATE INDEX idx_session_deletions_deleted_at ON SESSION_DELETIONS (deleted_at);
@@ -0,0 +1,8 @@
+-- The primary key serves lookups by session, this one the sessions of a user
+CREATE INDEX idx_participate_user_id ON PARTICIPATE (user_id);
+
+-- Keyset pagination orders by (date, id), with or without a teacher filter
+CREATE INDEX idx_sessions_date ON SESSIONS (date, id);
+CREATE INDEX idx_sessions_teacher_date ON SESSIONS (teacher_id, date, id);
+
+ALTER TABLE USERS ADD CONSTRAINT uk_users_email UNIQUE (email);
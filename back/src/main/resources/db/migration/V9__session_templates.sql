@@ -0,0 +1,21 @@
+CREATE TABLE SESSION_TEMPLATES (
+  id INT PRIMARY KEY AUTO_INCREMENT,
+  name VARCHAR(50),
+  description VARCHAR(2000),
+  teacher_id INT,
+  capacity INT,
+  recurrence VARCHAR(255) NOT NULL,
+  starts_at DATETIME NOT NULL,
+  time_zone VARCHAR(64) NOT NULL,
+  materialized_until DATETIME(6),
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)
+);
+
+ALTER TABLE SESSION_TEMPLATES ADD FOREIGN KEY (teacher_id) REFERENCES TEACHERS (id);
+CREATE INDEX idx_session_templates_materialized_until ON SESSION_TEMPLATES (materialized_until);
+
+-- Materializing twice, or from two instances, cannot duplicate an occurrence
+ALTER TABLE SESSIONS ADD COLUMN template_id INT;
+ALTER TABLE SESSIONS ADD FOREIGN KEY (template_id) REFERENCES SESSION_TEMPLATES (id);
+ALTER TABLE SESSIONS ADD CONSTRAINT uk_sessions_template_date UNIQUE (template_id, date);
@@ -0,0 +1,10 @@
+-- Default teachers and admin of a new database. A database created from ressources/sql/script.sql is baselined
+-- at 1 and already has them, so nothing is inserted twice.
+INSERT INTO TEACHERS (first_name, last_name)
+SELECT 'Margot', 'DELAHAYE' FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM TEACHERS)
+UNION ALL
+SELECT 'Hélène', 'THIERCELIN' FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM TEACHERS);
+
+INSERT INTO USERS (first_name, last_name, admin, email, password)
+SELECT 'Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq' FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM USERS WHERE email = 'yoga@studio.com');
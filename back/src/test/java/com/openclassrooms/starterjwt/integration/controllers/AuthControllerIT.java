@@ -5,6 +5,7 @@ import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.request.TokenRefreshRequest;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,10 +13,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
@@ -23,6 +26,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -56,7 +61,70 @@ public class AuthControllerIT {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").exists())
                 .andExpect(jsonPath("$.type").value("Bearer"))
+                .andExpect(jsonPath("$.username").value("yoga@studio.com"))
+                .andExpect(jsonPath("$.admin").value(true));
+    }
+
+    @Test
+    void givenAnonymousRequest_whenGetJwks_thenReturnsPublicSigningKeys() throws Exception {
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                .andExpect(jsonPath("$.keys[0].kid").exists())
+                .andExpect(jsonPath("$.keys[0].kty").value("RSA"))
+                .andExpect(jsonPath("$.keys[0].alg").value("RS256"))
+                .andExpect(jsonPath("$.keys[0].d").doesNotExist());
+    }
+
+    @Test
+    void givenRefreshToken_whenRefresh_thenRotatesTokens() throws Exception {
+        String refreshToken = objectMapper.readTree(login().getResponse().getContentAsString()).get("refreshToken").asText();
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest(refreshToken))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").exists())
+                .andExpect(jsonPath("$.refreshToken").exists())
+                .andExpect(jsonPath("$.refreshToken").value(not(refreshToken)))
                 .andExpect(jsonPath("$.username").value("yoga@studio.com"));
+
+        // Refresh tokens are single use
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest(refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void givenUnknownRefreshToken_whenRefresh_thenReturnsUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest("unknown"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void givenLoggedOutTokens_whenReused_thenReturnsUnauthorized() throws Exception {
+        String body = login().getResponse().getContentAsString();
+        String accessToken = objectMapper.readTree(body).get("token").asText();
+        String refreshToken = objectMapper.readTree(body).get("refreshToken").asText();
+
+        mockMvc.perform(get("/api/session").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest(refreshToken))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest(refreshToken))))
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
@@ -138,4 +206,47 @@ public class AuthControllerIT {
                         .content(objectMapper.writeValueAsString(signupRequest)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenStreamTicket_whenOpenEventStream_thenOnlyTheStreamAcceptsIt() throws Exception {
+        String accessToken = objectMapper.readTree(login().getResponse().getContentAsString()).get("token").asText();
+        String ticket = objectMapper.readTree(mockMvc.perform(post("/api/session/events/ticket")
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.expiresIn").value(30000))
+                        .andReturn().getResponse().getContentAsString())
+                .get("ticket").asText();
+
+        mockMvc.perform(get("/api/session/events").param("ticket", ticket).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/session/{id}/events", 999L).param("ticket", ticket).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/session/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/session/events").param("ticket", accessToken).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/session").param("ticket", ticket))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/session").header(HttpHeaders.AUTHORIZATION, "Bearer " + ticket))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private MvcResult login() throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("yoga@studio.com");
+        loginRequest.setPassword("test!1234");
+
+        return mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private static TokenRefreshRequest refreshRequest(String refreshToken) {
+        TokenRefreshRequest request = new TokenRefreshRequest();
+        request.setRefreshToken(refreshToken);
+        return request;
+    }
+}
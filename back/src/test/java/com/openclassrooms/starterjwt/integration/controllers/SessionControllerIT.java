@@ -1,23 +1,56 @@
 package com.openclassrooms.starterjwt.integration.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.ParticipationStatus;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.services.SessionChangeLog;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionSyncService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -33,11 +66,43 @@ public class SessionControllerIT {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionDeletionRepository sessionDeletionRepository;
+
+    @Autowired
+    private SessionChangeLog sessionChangeLog;
+
+    @Autowired
+    private SessionSyncService sessionSyncService;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private final long SESSION1_ID = 1L;
     private final long SESSION2_ID = 2L;
     private final long USER1_ID = 1L;
     private final long USER2_ID = 2L;
     private final long TEACHER1_ID = 1L;
+    // The seeded sessions are in the past, listings start at now unless given a range
+    private static final String SEEDED_FROM = "2025-01-01T00:00:00.000Z";
 
     @Test
     @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
@@ -50,6 +115,172 @@ public class SessionControllerIT {
                 .andExpect(jsonPath("$.description").value("Yoga session"));
     }
 
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenETag_whenFindByIdAgain_thenNotModifiedUntilParticipationChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/session/{id}", SESSION2_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/session/{id}", SESSION2_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", SESSION2_ID, USER1_ID))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/{id}", SESSION2_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenETag_whenFindAllAgain_thenNotModifiedUntilSessionDeleted() throws Exception {
+        String etag = mockMvc.perform(get("/api/session").param("from", SEEDED_FROM))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/session").param("from", SEEDED_FROM).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/api/session/{id}", SESSION2_ID))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session").param("from", SEEDED_FROM).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenSince_whenFindChanges_thenReturnsUpdatedSessionsAndTombstones() throws Exception {
+        long since = objectMapper.readTree(mockMvc.perform(get("/api/session/changes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("until").asLong();
+
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", SESSION2_ID, USER1_ID))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/session/{id}", SESSION1_ID))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/changes").param("since", String.valueOf(since)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated.length()").value(1))
+                .andExpect(jsonPath("$.updated[0].id").value(SESSION2_ID))
+                .andExpect(jsonPath("$.deleted[0]").value(SESSION1_ID))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        // Both changes are made in the test's transaction, they share its number and come together
+        mockMvc.perform(get("/api/session/changes").param("since", String.valueOf(since)).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated[0].id").value(SESSION2_ID))
+                .andExpect(jsonPath("$.deleted[0]").value(SESSION1_ID))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenChangeNumberOfRolledBackTransaction_whenLast_thenMovesPastIt() {
+        Long rolledBack = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return sessionChangeLog.next();
+        });
+
+        assertTrue(sessionChangeLog.last() >= rolledBack);
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenSinceBeforePurgedTombstones_whenFindChanges_thenReturnsGone() throws Exception {
+        sessionDeletionRepository.save(SessionDeletion.builder()
+                .sessionId(99L)
+                .deletedAt(LocalDateTime.now().minusYears(1))
+                .changeSeq(sessionChangeLog.next())
+                .build());
+        sessionSyncService.purgeExpired();
+
+        mockMvc.perform(get("/api/session/changes").param("since", "0"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenExistingSession_whenSubscribeToEvents_thenStartsEventStream() throws Exception {
+        mockMvc.perform(get("/api/session/{id}/events", SESSION1_ID).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        mockMvc.perform(get("/api/session/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenNonExistingSession_whenSubscribeToEvents_thenReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/session/{id}/events", 999L).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenSessions_whenExport_thenStreamsNdjsonAndCsv() throws Exception {
+        MvcResult ndjson = mockMvc.perform(get("/api/session/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] sessions = lines.split("\n");
+        assertEquals(2, sessions.length);
+        // Ordered by date: the Pilate session starts first
+        assertEquals(SESSION2_ID, objectMapper.readValue(sessions[0], SessionDto.class).getId());
+        assertEquals(Collections.singletonList(USER1_ID), objectMapper.readValue(sessions[1], SessionDto.class).getUsers());
+
+        MvcResult csv = mockMvc.perform(get("/api/session/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("id,name,date,duration,teacher_id")))
+                .andExpect(content().string(containsString("\r\n1,Yoga,")));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenNdjsonSessions_whenBulkImport_thenCreatesValidRowsWithParticipants() throws Exception {
+        String body = "{\"name\":\"Flow\",\"date\":\"2025-03-01T10:00:00.000+00:00\",\"teacher_id\":1,\"description\":\"Flow\",\"capacity\":5,\"users\":[1,2]}\n" +
+                "{\"name\":\"Nope\",\"date\":\"2025-03-01T10:00:00.000+00:00\",\"teacher_id\":99,\"description\":\"Nope\"}\n";
+
+        MvcResult result = mockMvc.perform(post("/api/session/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created.length()").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].messages[0]").value("Unknown teacher id: 99"))
+                .andReturn();
+
+        long id = objectMapper.readTree(result.getResponse().getContentAsString()).get("created").get(0).asLong();
+        mockMvc.perform(get("/api/session/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Flow"))
+                .andExpect(jsonPath("$.seatsTaken").value(2))
+                .andExpect(jsonPath("$.users.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenCsvSessions_whenBulkImport_thenCreatesSessions() throws Exception {
+        mockMvc.perform(post("/api/session/bulk")
+                        .contentType("text/csv")
+                        .content("name,date,teacher_id,description,users\r\nFlow,2025-03-01T10:00:00Z,2,\"Slow, then fast\",1\r\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created.length()").value(1))
+                .andExpect(jsonPath("$.errors.length()").value(0));
+    }
+
     @Test
     @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
     void givenNonExistingSessionId_whenFindById_thenReturnsNotFound() throws Exception {
@@ -69,14 +300,70 @@ public class SessionControllerIT {
     @Test
     @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
     void whenFindAll_thenReturnsSessions() throws Exception {
-        mockMvc.perform(get("/api/session")
+        mockMvc.perform(get("/api/session").param("from", SEEDED_FROM)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].id").value(SESSION2_ID))
+                .andExpect(jsonPath("$[0].name").value("Pilate"))
+                .andExpect(jsonPath("$[1].id").value(SESSION1_ID))
+                .andExpect(jsonPath("$[1].name").value("Yoga"))
+                .andExpect(header().doesNotExist(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenNoRange_whenFindAll_thenStartsWithUpcomingSessions() throws Exception {
+        Session upcoming = sessionRepository.save(Session.builder().name("Upcoming").description("Upcoming")
+                .date(new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000L)).build());
+
+        mockMvc.perform(get("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(upcoming.getId()));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenLimit_whenFindAll_thenPagesWithCursor() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/api/session").param("from", SEEDED_FROM)
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(SESSION2_ID))
+                .andExpect(header().exists(SessionController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        mockMvc.perform(get("/api/session")
+                        .param("limit", "1")
+                        .param("cursor", firstPage.getResponse().getHeader(SessionController.NEXT_CURSOR_HEADER))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].id").value(SESSION1_ID))
-                .andExpect(jsonPath("$[0].name").value("Yoga"))
-                .andExpect(jsonPath("$[1].id").value(SESSION2_ID))
-                .andExpect(jsonPath("$[1].name").value("Pilate"));
+                .andExpect(header().doesNotExist(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenTeacherFilter_whenFindAll_thenReturnsTeacherSessions() throws Exception {
+        mockMvc.perform(get("/api/session").param("from", SEEDED_FROM)
+                        .param("teacherId", String.valueOf(TEACHER1_ID))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(SESSION1_ID));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenMalformedCursor_whenFindAll_thenReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/session")
+                        .param("cursor", "not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -99,6 +386,53 @@ public class SessionControllerIT {
                 .andExpect(jsonPath("$.users").isArray());
     }
 
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenTeacherAlreadyBooked_whenCreate_thenReturnsConflict() throws Exception {
+        Date booked = sessionRepository.findById(SESSION1_ID).get().getDate();
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Overlapping Session");
+        sessionDto.setDescription("Starts half-way through session 1");
+        sessionDto.setDate(new Date(booked.getTime() + 30 * 60_000L));
+        sessionDto.setDuration(45);
+        sessionDto.setTeacher_id(TEACHER1_ID);
+
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isConflict());
+
+        // Back-to-back is fine
+        sessionDto.setDate(new Date(booked.getTime() + 60 * 60_000L));
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duration").value(45));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenSessionNotInTheIndex_whenCreate_thenDatabaseCheckReturnsConflict() throws Exception {
+        // Written without going through the schedule, as another instance would
+        sessionRepository.save(Session.builder()
+                .name("Stored elsewhere")
+                .description("Not in this instance's index")
+                .date(Date.from(Instant.parse("2025-03-02T10:00:00Z")))
+                .teacher(teacherRepository.getById(TEACHER1_ID))
+                .build());
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Overlapping Session");
+        sessionDto.setDescription("Starts half-way through the stored session");
+        sessionDto.setDate(Date.from(Instant.parse("2025-03-02T10:30:00Z")));
+        sessionDto.setTeacher_id(TEACHER1_ID);
+
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
     void givenInvalidSessionDto_whenCreate_thenReturnsBadRequest() throws Exception {
@@ -179,6 +513,122 @@ public class SessionControllerIT {
                 .andExpect(jsonPath("$.users").isArray());
     }
 
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenParticipantAddedAfterAnother_whenFindById_thenListsUsersById() throws Exception {
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", SESSION2_ID, USER1_ID))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/{id}", SESSION2_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0]").value(USER1_ID))
+                .andExpect(jsonPath("$.users[1]").value(USER2_ID));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenCachedTeacher_whenParticipate_thenSeatUpdateKeepsTeacherCached() throws Exception {
+        Cache cache = entityManagerFactory.getCache();
+        teacherRepository.findById(TEACHER1_ID);
+        assertTrue(cache.contains(Teacher.class, TEACHER1_ID));
+
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", SESSION2_ID, USER1_ID))
+                .andExpect(status().isOk());
+
+        assertTrue(cache.contains(Teacher.class, TEACHER1_ID));
+        assertFalse(cache.contains(Session.class, SESSION2_ID));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenUserAlreadyParticipating_whenParticipate_thenReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", SESSION1_ID, USER1_ID)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenUserNotParticipating_whenUnParticipate_thenReturnsBadRequest() throws Exception {
+        mockMvc.perform(delete("/api/session/{id}/participate/{userId}", SESSION1_ID, USER2_ID)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenFullSession_whenParticipate_thenWaitlistsAndPromotesOnLeave() throws Exception {
+        Session full = sessionRepository.save(Session.builder()
+                .name("Full session")
+                .description("Only one seat")
+                .date(new Date())
+                .capacity(1)
+                .seatsTaken(1)
+                .users(new ArrayList<>(Collections.singletonList(userRepository.getById(USER2_ID))))
+                .build());
+
+        mockMvc.perform(post("/api/session/{id}/participate/{userId}", full.getId(), USER1_ID)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(delete("/api/session/{id}/participate/{userId}", full.getId(), USER2_ID)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/{id}", full.getId())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.seatsTaken").value(1))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0]").value(USER1_ID));
+    }
+
+    // Committed transactions on separate threads, the sessions are removed afterwards
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenFullSession_whenJoinAndLeaveConcurrently_thenJoiningUserGetsTheSeat() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Long> created = new ArrayList<>();
+        try {
+            for (int round = 0; round < 20; round++) {
+                Long id = sessionRepository.save(Session.builder()
+                        .name("Full session")
+                        .description("Only one seat")
+                        .date(new Date())
+                        .capacity(1)
+                        .seatsTaken(1)
+                        .users(new ArrayList<>(Collections.singletonList(userRepository.findById(USER2_ID).get())))
+                        .build()).getId();
+                created.add(id);
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<ParticipationStatus> join = executor.submit(() -> {
+                    start.await();
+                    return sessionService.participate(id, USER1_ID);
+                });
+                Future<?> leave = executor.submit(() -> {
+                    start.await();
+                    sessionService.noLongerParticipate(id, USER2_ID);
+                    return null;
+                });
+                start.countDown();
+                join.get(10, TimeUnit.SECONDS);
+                leave.get(10, TimeUnit.SECONDS);
+
+                assertEquals(Collections.singletonList(USER1_ID),
+                        sessionService.findParticipantIds(Collections.singletonList(id)).get(id));
+                assertEquals(1, sessionRepository.findSummaryById(id).get().getSeatsTaken());
+                assertTrue(waitlistRepository.findAll().stream().noneMatch(entry -> entry.getSessionId().equals(id)));
+            }
+        } finally {
+            executor.shutdownNow();
+            transactionTemplate.executeWithoutResult(status -> created.forEach(id -> {
+                waitlistRepository.deleteBySession(id);
+                sessionRepository.deleteById(id);
+            }));
+        }
+    }
+
     @Test
     @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
     void givenNonExistingSession_whenParticipate_thenReturnsNotFound() throws Exception {
@@ -0,0 +1,149 @@
+package com.openclassrooms.starterjwt.integration.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionTemplateDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@Transactional
+public class SessionTemplateControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private static final DateTimeFormatter ISO_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneOffset.UTC);
+
+    private final LocalDateTime startsAt = LocalDateTime.now(ZoneOffset.UTC).plusDays(1).truncatedTo(ChronoUnit.MINUTES);
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenWeeklyTemplate_whenCreate_thenMaterializesTheRollingWindowOnly() throws Exception {
+        long id = create("FREQ=WEEKLY");
+
+        // 60 days ahead: the first occurrence and the next 8 weeks
+        assertEquals(9, occurrencesOf(id).size());
+        mockMvc.perform(get("/api/session-template/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recurrence").value("FREQ=WEEKLY"))
+                .andExpect(jsonPath("$.materializedUntil").isNotEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenFarFutureRange_whenFindOccurrences_thenComputesThemWithoutStoringThem() throws Exception {
+        long id = create("FREQ=WEEKLY");
+        Instant from = startsAt.plusYears(5).toInstant(ZoneOffset.UTC);
+        long stored = sessionRepository.count();
+
+        mockMvc.perform(get("/api/session-template/occurrences")
+                        .param("from", iso(from))
+                        .param("to", iso(from.plus(28, ChronoUnit.DAYS))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].templateId").value(id))
+                .andExpect(jsonPath("$[0].name").value("Weekly flow"));
+
+        assertEquals(stored, sessionRepository.count());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenTooLongRange_whenFindOccurrences_thenReturnsBadRequest() throws Exception {
+        Instant from = startsAt.toInstant(ZoneOffset.UTC);
+
+        mockMvc.perform(get("/api/session-template/occurrences")
+                        .param("from", iso(from))
+                        .param("to", iso(from.plus(400, ChronoUnit.DAYS))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenUnsupportedRecurrence_whenCreate_thenReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/session-template")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(template("FREQ=MONTHLY"))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"ADMIN"})
+    void givenTemplate_whenDelete_thenKeepsMaterializedSessions() throws Exception {
+        long id = create("FREQ=DAILY;COUNT=3");
+        List<Long> sessions = occurrencesOf(id).stream().map(Session::getId).collect(Collectors.toList());
+
+        mockMvc.perform(delete("/api/session-template/{id}", id))
+                .andExpect(status().isOk());
+
+        assertEquals(3, sessions.size());
+        assertTrue(sessions.stream().allMatch(sessionId -> sessionRepository.findById(sessionId)
+                .map(session -> session.getTemplateId() == null)
+                .orElse(false)));
+        mockMvc.perform(get("/api/session-template/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
+    private long create(String recurrence) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/session-template")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(template(recurrence))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private List<Session> occurrencesOf(long templateId) {
+        return sessionRepository.findAll().stream()
+                .filter(session -> session.getTemplateId() != null && session.getTemplateId() == templateId)
+                .collect(Collectors.toList());
+    }
+
+    private static String iso(Instant instant) {
+        return ISO_DATE_TIME.format(instant);
+    }
+
+    private SessionTemplateDto template(String recurrence) {
+        SessionTemplateDto template = new SessionTemplateDto();
+        template.setName("Weekly flow");
+        template.setDescription("Every week");
+        template.setTeacher_id(1L);
+        template.setCapacity(12);
+        template.setRecurrence(recurrence);
+        template.setStartsAt(startsAt);
+        template.setTimeZone("UTC");
+        return template;
+    }
+}
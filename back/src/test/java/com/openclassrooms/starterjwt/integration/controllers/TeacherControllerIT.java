@@ -2,6 +2,8 @@ package com.openclassrooms.starterjwt.integration.controllers;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -13,6 +15,9 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,6 +33,9 @@ public class TeacherControllerIT {
     @Autowired
     private TeacherRepository teacherRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void givenExistingTeacherId_whenFindById_thenReturnsTeacher() throws Exception {
@@ -58,4 +66,36 @@ public class TeacherControllerIT {
                 .andExpect(jsonPath("$[1].firstName").value("Helene"))
                 .andExpect(jsonPath("$[1].lastName").value("THIERCELIN"));
     }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void givenBookedTeacher_whenFindAvailability_thenReturnsBusyAndFreeSlots() throws Exception {
+        mockMvc.perform(get("/api/teacher/{id}/availability", 1L)
+                        .param("from", "2025-01-31T00:00:00.000Z")
+                        .param("to", "2025-02-03T00:00:00.000Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.busy.length()").value(1))
+                .andExpect(jsonPath("$.busy[0].sessionId").value(1))
+                .andExpect(jsonPath("$.free.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void givenNonExistingTeacherId_whenFindAvailability_thenReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/teacher/{id}/availability", 999L)
+                        .param("from", "2025-01-31T00:00:00.000Z")
+                        .param("to", "2025-02-03T00:00:00.000Z"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void givenTeachersListed_whenFindAllAgain_thenServedFromQueryCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        teacherRepository.findAll();
+        long hits = statistics.getQueryCacheHitCount();
+
+        teacherRepository.findAll();
+
+        assertTrue(statistics.getQueryCacheHitCount() > hits);
+    }
 }
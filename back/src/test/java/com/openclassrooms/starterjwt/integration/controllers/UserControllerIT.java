@@ -1,7 +1,11 @@
 package com.openclassrooms.starterjwt.integration.controllers;
 
+import com.openclassrooms.starterjwt.controllers.SessionController;
+import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +18,11 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
+import java.util.Date;
+
 import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +39,11 @@ public class UserControllerIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
     private User deletableUser;
 
     @BeforeEach
@@ -86,6 +99,59 @@ public class UserControllerIT {
                 );
     }
 
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"USER"})
+    void givenParticipations_whenFindSessions_thenReturnsUpcomingThenPastOnRequest() throws Exception {
+        User participant = userRepository.findById(1L).get();
+        Session later = sessionRepository.save(Session.builder().name("Later").description("Later")
+                .date(new Date(System.currentTimeMillis() + 2 * DAY)).users(Collections.singletonList(participant)).build());
+        Session sooner = sessionRepository.save(Session.builder().name("Sooner").description("Sooner")
+                .date(new Date(System.currentTimeMillis() + DAY)).users(Collections.singletonList(participant)).build());
+        sessionRepository.flush();
+
+        String cursor = mockMvc.perform(get("/api/user/{id}/sessions", 1L).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(sooner.getId()))
+                .andExpect(header().exists(SessionController.NEXT_CURSOR_HEADER))
+                .andReturn().getResponse().getHeader(SessionController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/api/user/{id}/sessions", 1L).param("limit", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(later.getId()))
+                .andExpect(jsonPath("$[0].users[0]").value(1L))
+                .andExpect(header().doesNotExist(SessionController.NEXT_CURSOR_HEADER));
+
+        // The seeded session 1 is already over
+        mockMvc.perform(get("/api/user/{id}/sessions", 1L).param("past", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    @WithMockUser(username = "yoga@studio.com", roles = {"USER"})
+    void givenNonExistingUserId_whenFindSessions_thenReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/user/{id}/sessions", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "test@example.com", roles = {"USER"})
+    void givenAnotherUsersId_whenFindSessions_thenReturnsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/user/{id}/sessions", 1L))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void givenAdmin_whenFindSessionsOfAnotherUser_thenReturnsSessions() throws Exception {
+        UserDetailsImpl admin = UserDetailsImpl.builder().id(1L).username("yoga@studio.com").admin(true).build();
+
+        mockMvc.perform(get("/api/user/{id}/sessions", deletableUser.getId()).with(user(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+    }
+
     @Test
     @WithMockUser(username = "yoga@studio.com", roles = {"USER"})
     void givenInvalidUserId_whenGetUser_thenReturnsBadRequest() throws Exception {
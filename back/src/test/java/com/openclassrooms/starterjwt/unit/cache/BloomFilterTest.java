@@ -0,0 +1,53 @@
+package com.openclassrooms.starterjwt.unit.cache;
+
+import com.openclassrooms.starterjwt.cache.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void givenAddedValues_whenMightContain_thenReturnsTrue() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("value-" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(filter.mightContain("value-" + i));
+        }
+    }
+
+    @Test
+    void givenFullFilter_whenMightContainUnknownValues_thenFalsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("value-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void givenEmptyFilter_whenMightContain_thenReturnsFalse() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("value"));
+        assertTrue(filter.getHashCount() > 1);
+    }
+
+    @Test
+    void givenInvalidSizing_whenCreate_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
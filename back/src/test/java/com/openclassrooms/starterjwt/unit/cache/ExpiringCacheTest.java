@@ -0,0 +1,126 @@
+package com.openclassrooms.starterjwt.unit.cache;
+
+import com.openclassrooms.starterjwt.cache.ExpiringCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+    }
+
+    @Test
+    void givenCachedValue_whenGet_thenReturnsItAndCountsHit() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, clock);
+        cache.put("key", "value");
+
+        assertEquals("value", cache.get("key"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    void givenExpiredValue_whenGet_thenReturnsNullAndCountsEviction() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, clock);
+        cache.put("key", "value");
+        clock.advance(1000);
+
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void givenFullCache_whenPut_thenEvictsLeastRecentlyUsed() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 1000, clock);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void givenLoader_whenGetTwice_thenLoadsOnce() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("key", key -> key + loads.incrementAndGet());
+        String result = cache.get("key", key -> key + loads.incrementAndGet());
+
+        assertEquals("key1", result);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void givenExplicitExpiry_whenPut_thenCapsItByTimeToLive() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, clock);
+        cache.put("short", "value", clock.millis() + 100);
+        cache.put("long", "value", clock.millis() + 10_000);
+        clock.advance(500);
+
+        assertNull(cache.get("short"));
+        assertEquals("value", cache.get("long"));
+
+        clock.advance(500);
+        cache.evictExpired();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void givenCachedValue_whenInvalidate_thenRemovesIt() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, clock);
+        cache.put("key", "value");
+
+        cache.invalidate("key");
+
+        assertNull(cache.get("key"));
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis = 1_000_000L;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
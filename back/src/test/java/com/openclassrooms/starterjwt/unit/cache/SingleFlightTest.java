@@ -0,0 +1,135 @@
+package com.openclassrooms.starterjwt.unit.cache;
+
+import com.openclassrooms.starterjwt.cache.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void givenConcurrentCallers_whenGet_thenLoadsOnceAndSharesResult() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10, 0);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.get(1L, key -> {
+                    loads.incrementAndGet();
+                    awaitQuietly(release);
+                    return "session-" + key;
+                })));
+            }
+
+            // Let every caller join the flight before the leader returns
+            while (flight.getLoadCount() + flight.getSharedCount() < CALLERS) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("session-1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(CALLERS - 1, flight.getSharedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenFailingLoader_whenConcurrentGet_thenEveryCallerSeesTheException() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> flight.get(1L, key -> {
+                    awaitQuietly(release);
+                    throw new IllegalStateException("database down");
+                })));
+            }
+            while (flight.getLoadCount() + flight.getSharedCount() < 2) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenMemoWindow_whenGetAgain_thenServesMemoizedValue() {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.get(1L, key -> "v" + loads.incrementAndGet());
+        String second = flight.get(1L, key -> "v" + loads.incrementAndGet());
+
+        assertEquals("v1", second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void givenNoMemoWindow_whenGetSequentially_thenLoadsEachTime() {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.get(1L, key -> "v" + loads.incrementAndGet());
+        flight.get(1L, key -> "v" + loads.incrementAndGet());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void givenInvalidatedKey_whenGet_thenReloads() {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10, 60_000);
+        flight.get(1L, key -> "stale");
+
+        flight.invalidate(1L);
+
+        assertEquals("fresh", flight.get(1L, key -> "fresh"));
+    }
+
+    @Test
+    void givenInvalidationDuringLoad_whenLoadCompletes_thenResultIsNotMemoized() {
+        SingleFlight<Long, String> flight = new SingleFlight<>(10, 60_000);
+
+        String loaded = flight.get(1L, key -> {
+            flight.invalidate(1L);
+            return "read-before-write";
+        });
+
+        assertEquals("read-before-write", loaded);
+        assertEquals("fresh", flight.get(1L, key -> "fresh"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
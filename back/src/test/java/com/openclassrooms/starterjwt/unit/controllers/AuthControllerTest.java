@@ -1,14 +1,18 @@
 package com.openclassrooms.starterjwt.unit.controllers;
 
 import com.openclassrooms.starterjwt.controllers.AuthController;
-import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.request.TokenRefreshRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+import com.openclassrooms.starterjwt.services.TokenRevocationService;
+import io.jsonwebtoken.impl.DefaultClaims;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -21,12 +25,15 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Optional;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +54,15 @@ public class AuthControllerTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @Test
     void givenValidCredentials_whenAuthenticateUser_thenReturnsJwtResponse() {
         LoginRequest loginRequest = new LoginRequest();
@@ -54,13 +70,14 @@ public class AuthControllerTest {
         loginRequest.setPassword("password");
         Authentication authentication = mock(Authentication.class);
         UserDetailsImpl userDetails = mock(UserDetailsImpl.class);
-        User user = new User("user@example.com", "LastName", "FirstName", "encodedPassword", false);
 
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(userDetails.getUsername()).thenReturn("user@example.com");
-        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+        when(userDetails.getId()).thenReturn(1L);
+        when(userDetails.getAdmin()).thenReturn(true);
         when(jwtUtils.generateJwtToken(authentication)).thenReturn("jwtToken");
+        when(refreshTokenService.issue(1L)).thenReturn("refreshToken");
 
         ResponseEntity<?> response = authController.authenticateUser(loginRequest);
 
@@ -68,7 +85,10 @@ public class AuthControllerTest {
         JwtResponse jwtResponse = (JwtResponse) response.getBody();
         assertNotNull(jwtResponse);
         assertEquals("jwtToken", jwtResponse.getToken());
+        assertEquals("refreshToken", jwtResponse.getRefreshToken());
         assertEquals("user@example.com", jwtResponse.getUsername());
+        assertTrue(jwtResponse.getAdmin());
+        verify(userRepository, never()).findByEmail(any());
     }
 
     @Test
@@ -89,4 +109,40 @@ public class AuthControllerTest {
         assertNotNull(messageResponse);
         assertEquals("User registered successfully!", messageResponse.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenRefreshToken_whenRefreshToken_thenReturnsRotatedTokens() {
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("oldRefreshToken");
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username("user@example.com").admin(false).build();
+
+        when(refreshTokenService.rotate("oldRefreshToken")).thenReturn(new RefreshTokenService.Rotation(1L, "newRefreshToken"));
+        when(userDetailsService.loadUserById(1L)).thenReturn(userDetails);
+        when(jwtUtils.generateJwtToken(userDetails)).thenReturn("jwtToken");
+
+        ResponseEntity<?> response = authController.refreshToken(refreshRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JwtResponse jwtResponse = (JwtResponse) response.getBody();
+        assertNotNull(jwtResponse);
+        assertEquals("jwtToken", jwtResponse.getToken());
+        assertEquals("newRefreshToken", jwtResponse.getRefreshToken());
+        assertEquals("user@example.com", jwtResponse.getUsername());
+    }
+
+    @Test
+    void givenTokens_whenLogout_thenRevokesBoth() {
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("refreshToken");
+        DefaultClaims claims = new DefaultClaims();
+        claims.setId("jti");
+        claims.setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        when(jwtUtils.verifyJwtToken("jwtToken")).thenReturn(claims);
+
+        ResponseEntity<?> response = authController.logout("Bearer jwtToken", refreshRequest);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(refreshTokenService).revoke("refreshToken");
+        verify(tokenRevocationService).revokeToken("jti", claims.getExpiration());
+    }
+}
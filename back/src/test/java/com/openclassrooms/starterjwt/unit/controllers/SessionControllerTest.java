@@ -1,22 +1,59 @@
 package com.openclassrooms.starterjwt.unit.controllers;
 
+import com.openclassrooms.starterjwt.cache.EntityTags;
 import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.events.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.ParticipationStatus;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.pagination.SessionCursor;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.payload.response.SessionChangesResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionImportResponse;
+import com.openclassrooms.starterjwt.payload.response.StreamTicketResponse;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionExportService;
+import com.openclassrooms.starterjwt.services.SessionImportService;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionSyncService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,38 +65,198 @@ public class SessionControllerTest {
     @Mock
     private SessionService sessionService;
 
+    @Mock
+    private SessionSyncService sessionSyncService;
+
+    @Mock
+    private SessionEventBroadcaster sessionEventBroadcaster;
+
+    @Mock
+    private SessionExportService sessionExportService;
+
+    @Mock
+    private SessionImportService sessionImportService;
+
     @Mock
     private SessionMapper sessionMapper;
 
+    @Mock
+    private JwtUtils jwtUtils;
+
     @Test
     void givenValidId_whenFindById_thenReturnsSession() {
         Long sessionId = 1L;
-        Session session = new Session();
+        SessionSummary session = summary(sessionId, new Date());
+        List<Long> users = Arrays.asList(1L, 2L);
         SessionDto sessionDto = new SessionDto();
-        when(sessionService.getById(sessionId)).thenReturn(session);
-        when(sessionMapper.toDto(session)).thenReturn(sessionDto);
+        when(sessionService.getSummaryById(sessionId)).thenReturn(session);
+        when(sessionService.findParticipantIds(sessionId)).thenReturn(users);
+        when(sessionMapper.toDto(session, users)).thenReturn(sessionDto);
 
-        ResponseEntity<?> response = sessionController.findById(sessionId.toString());
+        ResponseEntity<?> response = sessionController.findById(sessionId.toString(), request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sessionDto, response.getBody());
-        verify(sessionService, times(1)).getById(sessionId);
-        verify(sessionMapper, times(1)).toDto(session);
+        verify(sessionService, times(1)).getSummaryById(sessionId);
+        verify(sessionMapper, times(1)).toDto(session, users);
+    }
+
+    @Test
+    void givenUnknownId_whenFindById_thenReturnsNotFound() {
+        when(sessionService.getSummaryById(1L)).thenReturn(null);
+
+        ResponseEntity<?> response = sessionController.findById("1", request());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(sessionService, never()).findParticipantIds(anyLong());
+    }
+
+    @Test
+    void givenMatchingETag_whenFindById_thenReturnsNotModifiedWithoutLoadingParticipants() {
+        SessionSummary session = summary(1L, new Date());
+        when(sessionService.getSummaryById(1L)).thenReturn(session);
+
+        ResponseEntity<?> response = sessionController.findById("1", request(EntityTags.of(1L, session.getUpdatedAt())));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(sessionService, never()).findParticipantIds(anyLong());
+        verifyNoInteractions(sessionMapper);
     }
 
     @Test
     void givenExistingSessions_whenFindAll_thenReturnsListOfSessions() {
-        List<Session> sessions = Collections.singletonList(new Session());
+        List<SessionSummary> sessions = Collections.singletonList(summary(1L, new Date()));
+        Map<Long, List<Long>> participants = Collections.singletonMap(1L, Collections.singletonList(2L));
         List<SessionDto> sessionDtos = Collections.singletonList(new SessionDto());
-        when(sessionService.findAll()).thenReturn(sessions);
-        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+        when(sessionService.findPage(null, null, null, null, null)).thenReturn(new SliceImpl<>(sessions));
+        when(sessionService.findParticipantIds(Collections.singletonList(1L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessions, participants)).thenReturn(sessionDtos);
 
-        ResponseEntity<?> response = sessionController.findAll();
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null, request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sessionDtos, response.getBody());
-        verify(sessionService, times(1)).findAll();
-        verify(sessionMapper, times(1)).toDto(sessions);
+        assertNull(response.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        verify(sessionService, times(1)).findPage(null, null, null, null, null);
+        verify(sessionMapper, times(1)).toDto(sessions, participants);
+    }
+
+    @Test
+    void givenMoreSessionsThanLimit_whenFindAll_thenReturnsNextCursor() {
+        Date date = new Date();
+        List<SessionSummary> sessions = Collections.singletonList(summary(3L, date));
+        when(sessionService.findPage(null, null, null, null, 1))
+                .thenReturn(new SliceImpl<>(sessions, PageRequest.of(0, 1), true));
+        when(sessionService.findParticipantIds(Collections.singletonList(3L))).thenReturn(Collections.emptyMap());
+        when(sessionMapper.toDto(sessions, Collections.emptyMap())).thenReturn(Collections.singletonList(new SessionDto()));
+
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, 1, request());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SessionCursor cursor = SessionCursor.decode(response.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        assertEquals(date, cursor.getDate());
+        assertEquals(3L, cursor.getId());
+    }
+
+    @Test
+    void givenUnchangedPage_whenFindAllWithETag_thenReturnsNotModified() {
+        List<SessionSummary> sessions = Collections.singletonList(summary(1L, new Date()));
+        when(sessionService.findPage(null, null, null, null, null)).thenReturn(new SliceImpl<>(sessions));
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        sessionController.findAll(null, null, null, null, null,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), servletResponse));
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null,
+                request(servletResponse.getHeader(HttpHeaders.ETAG)));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(sessionService, times(1)).findParticipantIds(Collections.singletonList(1L));
+    }
+
+    @Test
+    void givenUpdatedSession_whenFindAllWithStaleETag_thenReturnsPage() {
+        Date date = new Date();
+        when(sessionService.findPage(null, null, null, null, null))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(summary(1L, date))));
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        sessionController.findAll(null, null, null, null, null,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), servletResponse));
+
+        SessionSummary updated = new SessionSummary(1L, "Yoga", date, 60, "Description", 1L, null, 0,
+                LocalDateTime.now(), LocalDateTime.now().plusSeconds(1));
+        when(sessionService.findPage(null, null, null, null, null)).thenReturn(new SliceImpl<>(Collections.singletonList(updated)));
+
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null,
+                request(servletResponse.getHeader(HttpHeaders.ETAG)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void givenSince_whenFindChanges_thenReturnsUpdatedAndDeletedSessions() {
+        List<SessionSummary> sessions = Collections.singletonList(summary(1L, new Date()));
+        Map<Long, List<Long>> participants = Collections.singletonMap(1L, Collections.singletonList(2L));
+        List<SessionDto> sessionDtos = Collections.singletonList(new SessionDto());
+        when(sessionSyncService.findChanges(10L, 50))
+                .thenReturn(new SessionSyncService.Changes(sessions, Collections.singletonList(3L), 12L, true));
+        when(sessionService.findParticipantIds(Collections.singletonList(1L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessions, participants)).thenReturn(sessionDtos);
+
+        ResponseEntity<?> response = sessionController.findChanges(10L, 50);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SessionChangesResponse changes = (SessionChangesResponse) response.getBody();
+        assertEquals(sessionDtos, changes.getUpdated());
+        assertEquals(Collections.singletonList(3L), changes.getDeleted());
+        assertEquals(12L, changes.getUntil());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void givenExistingSession_whenSubscribe_thenReturnsEmitter() {
+        SseEmitter emitter = new SseEmitter();
+        when(sessionEventBroadcaster.subscribe(1L)).thenReturn(emitter);
+
+        ResponseEntity<SseEmitter> response = sessionController.subscribe("1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(emitter, response.getBody());
+    }
+
+    @Test
+    void givenUnknownSession_whenSubscribe_thenReturnsNotFound() {
+        when(sessionEventBroadcaster.subscribe(1L)).thenThrow(new NotFoundException());
+
+        ResponseEntity<SseEmitter> response = sessionController.subscribe("1");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void givenAuthenticatedUser_whenStreamTicket_thenReturnsTicket() {
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("yoga@studio.com").build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, null));
+        when(jwtUtils.generateStreamTicket(principal)).thenReturn("ticket");
+        when(jwtUtils.getStreamTicketExpirationMs()).thenReturn(30_000);
+
+        try {
+            ResponseEntity<StreamTicketResponse> response = sessionController.streamTicket();
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("ticket", response.getBody().getTicket());
+            assertEquals(30_000L, response.getBody().getExpiresIn());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void givenMalformedCursor_whenFindAll_thenReturnsBadRequest() {
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, "not-a-cursor", null, request());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(sessionService);
     }
 
     @Test
@@ -121,6 +318,15 @@ public class SessionControllerTest {
         verify(sessionService, times(1)).participate(sessionId, userId);
     }
 
+    @Test
+    void givenFullSession_whenParticipate_thenReturnsAccepted() {
+        when(sessionService.participate(1L, 2L)).thenReturn(ParticipationStatus.WAITLISTED);
+
+        ResponseEntity<?> response = sessionController.participate("1", "2");
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    }
+
     @Test
     void givenValidIds_whenUnParticipate_thenReturnsOk() {
         long sessionId = 1L;
@@ -131,4 +337,64 @@ public class SessionControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(sessionService, times(1)).noLongerParticipate(sessionId, userId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenCsvFormat_whenExport_thenStreamsCsv() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = sessionController.export("csv");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("text/csv;charset=UTF-8", String.valueOf(response.getHeaders().getContentType()));
+        verify(sessionExportService, never()).writeCsv(any(OutputStream.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(sessionExportService).writeCsv(out);
+    }
+
+    @Test
+    void givenDefaultFormat_whenExport_thenStreamsNdjson() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = sessionController.export("ndjson");
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(sessionExportService).writeNdjson(out);
+    }
+
+    @Test
+    void givenUnknownFormat_whenExport_thenReturnsBadRequest() {
+        ResponseEntity<StreamingResponseBody> response = sessionController.export("xml");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(sessionExportService);
+    }
+
+    @Test
+    void givenNdjsonOrCsvBody_whenBulkImport_thenDelegatesByContentType() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        SessionImportResponse ndjsonReport = new SessionImportResponse(Collections.singletonList(3L), Collections.emptyList());
+        SessionImportResponse csvReport = new SessionImportResponse(Collections.emptyList(), Collections.emptyList());
+        when(sessionImportService.importNdjson(body)).thenReturn(ndjsonReport);
+        when(sessionImportService.importCsv(body)).thenReturn(csvReport);
+
+        ResponseEntity<?> ndjson = sessionController.bulkImport("application/x-ndjson;charset=UTF-8", body);
+        ResponseEntity<?> csv = sessionController.bulkImport("text/csv", body);
+
+        assertSame(ndjsonReport, ndjson.getBody());
+        assertSame(csvReport, csv.getBody());
+    }
+
+    private static WebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), new MockHttpServletResponse());
+    }
+
+    private static WebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/session");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + ifNoneMatch.replace("\"", "") + "\"");
+        return new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+    }
+
+    private static SessionSummary summary(Long id, Date date) {
+        return new SessionSummary(id, "Yoga", date, 60, "Yoga session", 1L, null, 0, null, null);
+    }
+}
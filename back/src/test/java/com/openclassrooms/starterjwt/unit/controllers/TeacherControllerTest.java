@@ -1,22 +1,33 @@
 package com.openclassrooms.starterjwt.unit.controllers;
 
+import com.openclassrooms.starterjwt.cache.EntityTags;
 import com.openclassrooms.starterjwt.controllers.TeacherController;
 import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.payload.response.TeacherAvailabilityResponse;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,7 +50,7 @@ public class TeacherControllerTest {
         when(teacherService.findById(teacherId)).thenReturn(teacher);
         when(teacherMapper.toDto(teacher)).thenReturn(teacherDto);
 
-        ResponseEntity<?> response = teacherController.findById(teacherId.toString());
+        ResponseEntity<?> response = teacherController.findById(teacherId.toString(), request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(teacherDto, response.getBody());
@@ -47,6 +58,42 @@ public class TeacherControllerTest {
         verify(teacherMapper, times(1)).toDto(teacher);
     }
 
+    @Test
+    void givenMatchingETag_whenFindById_thenReturnsNotModified() {
+        Teacher teacher = Teacher.builder().id(1L).updatedAt(LocalDateTime.now()).build();
+        when(teacherService.findById(1L)).thenReturn(teacher);
+
+        ResponseEntity<?> response = teacherController.findById("1", request(EntityTags.of(1L, teacher.getUpdatedAt())));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verifyNoInteractions(teacherMapper);
+    }
+
+    @Test
+    void givenTeacherUpdatedSinceETag_whenFindAll_thenReturnsTeachers() {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        List<Teacher> teachers = Collections.singletonList(Teacher.builder().id(1L).updatedAt(updatedAt.plusNanos(1_000)).build());
+        when(teacherService.findAll()).thenReturn(teachers);
+        String staleTag = EntityTags.ofCollection(Stream.of(EntityTags.of(1L, updatedAt)));
+
+        ResponseEntity<?> response = teacherController.findAll(request(staleTag));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(teacherMapper, times(1)).toDto(teachers);
+    }
+
+    @Test
+    void givenUnchangedTeachers_whenFindAllWithETag_thenReturnsNotModified() {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        when(teacherService.findAll()).thenReturn(Collections.singletonList(Teacher.builder().id(1L).updatedAt(updatedAt).build()));
+        String tag = EntityTags.ofCollection(Stream.of(EntityTags.of(1L, updatedAt)));
+
+        ResponseEntity<?> response = teacherController.findAll(request(tag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verifyNoInteractions(teacherMapper);
+    }
+
     @Test
     void givenExistingTeachers_whenFindAll_thenReturnsListOfTeachers() {
         List<Teacher> teachers = Collections.singletonList(new Teacher());
@@ -54,7 +101,7 @@ public class TeacherControllerTest {
         when(teacherService.findAll()).thenReturn(teachers);
         when(teacherMapper.toDto(teachers)).thenReturn(teacherDto);
 
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(teacherDto, response.getBody());
@@ -67,11 +114,45 @@ public class TeacherControllerTest {
         when(teacherService.findAll()).thenReturn(Collections.emptyList());
         when(teacherMapper.toDto(Collections.emptyList())).thenReturn(Collections.emptyList());
 
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(request());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(Collections.emptyList(), response.getBody());
         verify(teacherService, times(1)).findAll();
         verify(teacherMapper, times(1)).toDto(Collections.emptyList());
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenExistingTeacher_whenFindAvailability_thenReturnsAvailability() {
+        Date from = new Date(0L);
+        Date to = new Date(100L);
+        TeacherAvailabilityResponse availability = new TeacherAvailabilityResponse(from, to, Collections.emptyList(), Collections.emptyList());
+        when(teacherService.findById(1L)).thenReturn(new Teacher());
+        when(teacherService.findAvailability(1L, from, to)).thenReturn(availability);
+
+        ResponseEntity<?> response = teacherController.findAvailability("1", from, to);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(availability, response.getBody());
+    }
+
+    @Test
+    void givenUnknownTeacher_whenFindAvailability_thenReturnsNotFound() {
+        when(teacherService.findById(1L)).thenReturn(null);
+
+        ResponseEntity<?> response = teacherController.findAvailability("1", new Date(0L), new Date(100L));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(teacherService, never()).findAvailability(any(), any(), any());
+    }
+
+    private static WebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/teacher"), new MockHttpServletResponse());
+    }
+
+    private static WebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/teacher");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + ifNoneMatch + "\"");
+        return new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+    }
+}
@@ -1,9 +1,16 @@
 package com.openclassrooms.starterjwt.unit.controllers;
 
+import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.controllers.UserController;
+import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.pagination.SessionCursor;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -11,12 +18,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -32,6 +46,12 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private SessionMapper sessionMapper;
+
     @AfterEach
     void clearSecurityContext() {
         SecurityContextHolder.clearContext();
@@ -53,6 +73,67 @@ class UserControllerTest {
         verify(userMapper, times(1)).toDto(user);
     }
 
+    @Test
+    void givenUserWithMoreSessions_whenFindSessions_thenReturnsPageWithNextCursor() {
+        Date date = new Date(1000L);
+        List<SessionSummary> sessions = Collections.singletonList(new SessionSummary(4L, "Yoga", date, 60, "Yoga session", 1L, null, 1, null, null));
+        Map<Long, List<Long>> participants = Collections.singletonMap(4L, Collections.singletonList(1L));
+        List<SessionDto> sessionDtos = Collections.singletonList(new SessionDto());
+        when(userService.findById(1L)).thenReturn(owner());
+        authenticate("owner@example.com", false);
+        when(sessionService.findPageByParticipant(1L, false, null, 1)).thenReturn(new SliceImpl<>(sessions, PageRequest.of(0, 1), true));
+        when(sessionService.findParticipantIds(Collections.singletonList(4L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessions, participants)).thenReturn(sessionDtos);
+
+        ResponseEntity<?> response = userController.findSessions("1", false, null, 1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(sessionDtos, response.getBody());
+        assertEquals(new SessionCursor(date, 4L).encode(), response.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void givenUnknownUser_whenFindSessions_thenReturnsNotFound() {
+        when(userService.findById(1L)).thenReturn(null);
+
+        ResponseEntity<?> response = userController.findSessions("1", false, null, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void givenAnotherUser_whenFindSessions_thenReturnsUnauthorized() {
+        when(userService.findById(1L)).thenReturn(owner());
+        authenticate("other@example.com", false);
+
+        ResponseEntity<?> response = userController.findSessions("1", false, null, null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void givenAdmin_whenFindSessionsOfAnotherUser_thenReturnsSessions() {
+        when(userService.findById(1L)).thenReturn(owner());
+        authenticate("admin@example.com", true);
+        when(sessionService.findPageByParticipant(1L, false, null, null)).thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        ResponseEntity<?> response = userController.findSessions("1", false, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void givenMalformedCursor_whenFindSessions_thenReturnsBadRequest() {
+        when(userService.findById(1L)).thenReturn(owner());
+        authenticate("owner@example.com", false);
+
+        ResponseEntity<?> response = userController.findSessions("1", false, "not a cursor", null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     void givenValidId_whenDelete_thenReturnsOk() {
         Long userId = 1L;
@@ -69,4 +150,15 @@ class UserControllerTest {
         verify(userService, times(1)).findById(userId);
         verify(userService, times(1)).delete(userId);
     }
-}
\ No newline at end of file
+
+    private static User owner() {
+        User user = new User();
+        user.setEmail("owner@example.com");
+        return user;
+    }
+
+    private static void authenticate(String username, boolean admin) {
+        UserDetails userDetails = UserDetailsImpl.builder().username(username).admin(admin).build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(userDetails, null));
+    }
+}
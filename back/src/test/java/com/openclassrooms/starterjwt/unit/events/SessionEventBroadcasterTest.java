@@ -0,0 +1,119 @@
+package com.openclassrooms.starterjwt.unit.events;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.events.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionEventBroadcasterTest {
+
+    @Mock
+    private SessionService sessionService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SessionEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new SessionEventBroadcaster(sessionService, meterRegistry, 60_000, 16, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void givenBurstOfChanges_whenFlush_thenLoadsSessionOnce() {
+        when(sessionService.getSummaryById(1L)).thenReturn(summary(1L));
+        broadcaster.subscribe(1L);
+        clearInvocations(sessionService);
+        when(sessionService.findParticipantIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonMap(1L, Collections.singletonList(2L)));
+
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+        broadcaster.flush();
+        broadcaster.flush();
+
+        verify(sessionService, times(1)).getSummaryById(1L);
+        verify(sessionService, times(1)).findParticipantIds(Collections.singletonList(1L));
+    }
+
+    @Test
+    void givenNoSubscribers_whenFlush_thenSkipsLoading() {
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+
+        broadcaster.flush();
+
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void givenSubscriberOfAnotherSession_whenFlush_thenSkipsUnwatchedSession() {
+        when(sessionService.getSummaryById(2L)).thenReturn(summary(2L));
+        broadcaster.subscribe(2L);
+        clearInvocations(sessionService);
+
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+        broadcaster.flush();
+
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    void givenCatalogSubscriberAndDeletedSession_whenFlush_thenDoesNotFail() {
+        broadcaster.subscribeAll();
+        when(sessionService.findParticipantIds(Collections.singletonList(1L))).thenReturn(Collections.emptyMap());
+        when(sessionService.getSummaryById(1L)).thenReturn(null);
+
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+
+        assertDoesNotThrow(() -> broadcaster.flush());
+    }
+
+    @Test
+    void givenMaxSubscribersReached_whenSubscribe_thenThrowsTooManyRequests() {
+        when(sessionService.getSummaryById(1L)).thenReturn(summary(1L));
+        broadcaster.subscribe(1L);
+        broadcaster.subscribeAll();
+
+        assertThrows(TooManyRequestsException.class, () -> broadcaster.subscribe(1L));
+        assertEquals(2.0, meterRegistry.get("session.events.subscribers").gauge().value());
+    }
+
+    @Test
+    void givenUnknownSession_whenSubscribe_thenThrowsNotFoundAndReleasesSubscriber() {
+        when(sessionService.getSummaryById(1L)).thenReturn(null);
+
+        assertThrows(NotFoundException.class, () -> broadcaster.subscribe(1L));
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+        broadcaster.flush();
+
+        assertEquals(0.0, meterRegistry.get("session.events.subscribers").gauge().value());
+        verify(sessionService, never()).findParticipantIds(anyList());
+    }
+
+    private static SessionSummary summary(Long id) {
+        return new SessionSummary(id, "Yoga", new Date(), 60, "Yoga session", 1L, 10, 1, null, null);
+    }
+}
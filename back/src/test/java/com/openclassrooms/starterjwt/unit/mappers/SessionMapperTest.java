@@ -1,12 +1,16 @@
 package com.openclassrooms.starterjwt.unit.mappers;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Date;
 import java.util.Arrays;
@@ -14,6 +18,8 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
 
 class SessionMapperTest {
 
@@ -55,6 +61,44 @@ class SessionMapperTest {
         assertEquals("Session 2", sessions.get(1).getName());
     }
 
+    @Test
+    void givenDtoWithUserIds_whenToEntity_thenResolvesUsersInOneBatch() {
+        UserService userService = mock(UserService.class);
+        ReflectionTestUtils.setField(sessionMapper, "userService", userService);
+        User user1 = new User();
+        user1.setId(1L);
+        User user2 = new User();
+        user2.setId(2L);
+        when(userService.findAllById(anyCollection())).thenReturn(Arrays.asList(user2, user1));
+
+        SessionDto dto = new SessionDto();
+        dto.setName("Yoga Session");
+        dto.setUsers(Arrays.asList(1L, 2L, 1L));
+
+        Session result = sessionMapper.toEntity(dto);
+
+        assertEquals(Arrays.asList(user1, user2), result.getUsers());
+        verify(userService, times(1)).findAllById(anyCollection());
+        verify(userService, never()).findById(any());
+    }
+
+    @Test
+    void givenDtoWithUnknownUserId_whenToEntity_thenThrowsBadRequest() {
+        UserService userService = mock(UserService.class);
+        ReflectionTestUtils.setField(sessionMapper, "userService", userService);
+        User user1 = new User();
+        user1.setId(1L);
+        when(userService.findAllById(anyCollection())).thenReturn(Collections.singletonList(user1));
+
+        SessionDto dto = new SessionDto();
+        dto.setName("Yoga Session");
+        dto.setUsers(Arrays.asList(1L, 99L));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> sessionMapper.toEntity(dto));
+
+        assertTrue(exception.getMessage().contains("99"));
+    }
+
     @Test
     void givenSessionWithTeacher_whenToDto_thenReturnsCorrectDto() {
         Teacher teacher = new Teacher();
@@ -92,4 +136,28 @@ class SessionMapperTest {
         assertNotNull(dto.getUsers());
         assertTrue(dto.getUsers().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenSummaryAndParticipants_whenToDto_thenReturnsCorrectDto() {
+        Date date = new Date();
+        SessionSummary summary = new SessionSummary(1L, "Test Session", date, 60, "Description", 5L, null, 0, null, null);
+
+        SessionDto dto = sessionMapper.toDto(summary, Arrays.asList(1L, 2L));
+
+        assertEquals(1L, dto.getId());
+        assertEquals("Test Session", dto.getName());
+        assertEquals(date, dto.getDate());
+        assertEquals(5L, dto.getTeacher_id());
+        assertEquals(Arrays.asList(1L, 2L), dto.getUsers());
+    }
+
+    @Test
+    void givenSummariesWithoutParticipants_whenToDto_thenReturnsEmptyUserLists() {
+        SessionSummary summary = new SessionSummary(1L, "Test Session", new Date(), 60, "Description", 5L, null, 0, null, null);
+
+        List<SessionDto> dtos = sessionMapper.toDto(Collections.singletonList(summary), Collections.emptyMap());
+
+        assertEquals(1, dtos.size());
+        assertTrue(dtos.get(0).getUsers().isEmpty());
+    }
+}
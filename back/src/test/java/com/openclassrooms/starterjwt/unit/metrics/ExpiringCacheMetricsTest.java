@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.unit.metrics;
+
+import com.openclassrooms.starterjwt.cache.ExpiringCache;
+import com.openclassrooms.starterjwt.metrics.ExpiringCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpiringCacheMetricsTest {
+
+    @Test
+    void givenCacheBean_whenBound_thenPublishesItsCountersTaggedByName() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExpiringCache<String, String> cache = new ExpiringCache<>(1, 60_000);
+        new ExpiringCacheMetrics(Collections.singletonMap("principalCache", cache)).bindTo(registry);
+
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+        cache.put("b", "2");
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "principalCache", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "principalCache", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.evictions").tag("cache", "principalCache").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tag("cache", "principalCache").gauge().value());
+    }
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.unit.recurrence;
+
+import com.openclassrooms.starterjwt.recurrence.RecurrenceRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecurrenceRuleTest {
+
+    private static final ZoneId PARIS = ZoneId.of("Europe/Paris");
+
+    // Monday 2025-03-17 18:00 in Paris
+    private static final ZonedDateTime START = LocalDateTime.of(2025, 3, 17, 18, 0).atZone(PARIS);
+
+    @Test
+    void givenWeeklyByDay_whenBetween_thenReturnsEachDayOfEachWeekFromStart() {
+        RecurrenceRule rule = RecurrenceRule.parse("RRULE:FREQ=WEEKLY;BYDAY=WE,MO");
+
+        List<Instant> occurrences = rule.between(START, START.toInstant(), START.plusWeeks(2).toInstant());
+
+        assertEquals(Arrays.asList(
+                START.toInstant(),
+                START.plusDays(2).toInstant(),
+                START.plusWeeks(1).toInstant(),
+                START.plusWeeks(1).plusDays(2).toInstant()), occurrences);
+    }
+
+    @Test
+    void givenWeeklyRuleAcrossDstChange_whenBetween_thenKeepsWallClockTime() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY");
+
+        List<Instant> occurrences = rule.between(START, START.toInstant(), START.plusWeeks(3).toInstant());
+
+        assertEquals(3, occurrences.size());
+        assertTrue(occurrences.stream().allMatch(occurrence -> occurrence.atZone(PARIS).getHour() == 18));
+    }
+
+    @Test
+    void givenCount_whenBetweenLaterWindow_thenCountsOccurrencesBeforeIt() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=2;COUNT=3");
+
+        List<Instant> occurrences = rule.between(START, START.plusDays(1).toInstant(), START.plusYears(1).toInstant());
+
+        assertEquals(Arrays.asList(START.plusDays(2).toInstant(), START.plusDays(4).toInstant()), occurrences);
+    }
+
+    @Test
+    void givenUntil_whenBetween_thenStopsAfterUntil() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250319");
+
+        List<Instant> occurrences = rule.between(START, START.toInstant(), START.plusYears(1).toInstant());
+
+        assertEquals(3, occurrences.size());
+    }
+
+    @Test
+    void givenFarFutureWindow_whenBetween_thenReturnsOnlyThatWindow() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO");
+        ZonedDateTime from = START.plusYears(10);
+
+        List<ZonedDateTime> occurrences = rule.between(START, from.toInstant(), from.plusWeeks(4).toInstant()).stream()
+                .map(occurrence -> occurrence.atZone(PARIS))
+                .collect(Collectors.toList());
+
+        assertEquals(2, occurrences.size());
+        assertEquals(14, ChronoUnit.DAYS.between(occurrences.get(0), occurrences.get(1)));
+        assertTrue(occurrences.stream().allMatch(occurrence -> occurrence.getHour() == 18 && !occurrence.isBefore(from)));
+    }
+
+    @Test
+    void givenInvalidRules_whenParse_thenThrowsIllegalArgument() {
+        for (String rule : Arrays.asList("", "INTERVAL=2", "FREQ=MONTHLY", "FREQ=DAILY;BYDAY=MO", "FREQ=WEEKLY;BYDAY=XX",
+                "FREQ=DAILY;COUNT=0", "FREQ=DAILY;COUNT=2;UNTIL=20250319", "FREQ=DAILY;UNTIL=tomorrow", "FREQ")) {
+            assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(rule), rule);
+        }
+    }
+}
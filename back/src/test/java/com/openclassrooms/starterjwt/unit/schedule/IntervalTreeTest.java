@@ -0,0 +1,77 @@
+package com.openclassrooms.starterjwt.unit.schedule;
+
+import com.openclassrooms.starterjwt.schedule.IntervalTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntervalTreeTest {
+
+    @Test
+    void givenIntervals_whenOverlapping_thenTreatsThemAsHalfOpen() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 20, 1);
+        tree.insert(20, 30, 2);
+        tree.insert(0, 100, 3);
+
+        assertEquals(Arrays.asList(3L, 1L), ids(tree.overlapping(15, 20)));
+        assertEquals(Arrays.asList(3L, 2L), ids(tree.overlapping(20, 21)));
+        assertEquals(Arrays.asList(3L, 1L, 2L), ids(tree.overlapping(0, 100)));
+        assertTrue(tree.overlapping(100, 200).isEmpty());
+    }
+
+    @Test
+    void givenMissingInterval_whenRemove_thenReturnsFalse() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 20, 1);
+
+        assertFalse(tree.remove(10, 2));
+        assertTrue(tree.remove(10, 1));
+        assertEquals(0, tree.size());
+        assertTrue(tree.overlapping(0, 100).isEmpty());
+    }
+
+    @Test
+    void givenRandomInsertsAndRemoves_whenOverlapping_thenMatchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<IntervalTree.Interval> all = new ArrayList<>();
+
+        for (long id = 0; id < 2000; id++) {
+            long start = random.nextInt(10_000);
+            IntervalTree.Interval interval = new IntervalTree.Interval(start, start + 1 + random.nextInt(200), id);
+            tree.insert(interval.getStart(), interval.getEnd(), id);
+            all.add(interval);
+
+            if (random.nextInt(3) == 0) {
+                IntervalTree.Interval removed = all.remove(random.nextInt(all.size()));
+                assertTrue(tree.remove(removed.getStart(), removed.getId()));
+            }
+        }
+        assertEquals(all.size(), tree.size());
+
+        for (int i = 0; i < 500; i++) {
+            long from = random.nextInt(10_000);
+            long to = from + random.nextInt(300);
+            List<IntervalTree.Interval> expected = all.stream()
+                    .filter(interval -> interval.getStart() < to && interval.getEnd() > from)
+                    .sorted(Comparator.comparingLong(IntervalTree.Interval::getStart).thenComparingLong(IntervalTree.Interval::getId))
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, tree.overlapping(from, to));
+        }
+    }
+
+    private static List<Long> ids(List<IntervalTree.Interval> intervals) {
+        return intervals.stream().map(IntervalTree.Interval::getId).collect(Collectors.toList());
+    }
+}
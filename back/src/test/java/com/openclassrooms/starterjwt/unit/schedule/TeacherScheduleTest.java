@@ -0,0 +1,183 @@
+package com.openclassrooms.starterjwt.unit.schedule;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.ConflictException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionSlot;
+import com.openclassrooms.starterjwt.schedule.IntervalTree;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TeacherScheduleTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private TeacherRepository teacherRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TeacherSchedule teacherSchedule;
+
+    @BeforeEach
+    void setUp() {
+        teacherSchedule = new TeacherSchedule(sessionRepository, teacherRepository, transactionTemplate);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(sessionRepository.streamSlots()).thenReturn(Stream.of(
+                new SessionSlot(1L, 1L, new Date(10 * HOUR), 60),
+                new SessionSlot(2L, 2L, new Date(10 * HOUR), 90)));
+
+        teacherSchedule.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void givenStoredSessions_whenStarted_thenIndexesThemByTeacher() {
+        assertEquals(2, teacherSchedule.size());
+        assertEquals(Collections.singletonList(1L), ids(teacherSchedule.findBookings(1L, new Date(0), new Date(24 * HOUR))));
+        assertEquals(Collections.singletonList(2L), ids(teacherSchedule.findBookings(2L, new Date(11 * HOUR), new Date(12 * HOUR))));
+        assertTrue(teacherSchedule.findBookings(3L, new Date(0), new Date(24 * HOUR)).isEmpty());
+    }
+
+    @Test
+    void givenOverlappingSession_whenBook_thenThrowsConflictWithoutSaving() {
+        Session session = session(null, 1L, 10 * HOUR + HOUR / 2);
+        when(sessionRepository.findOverlappingIds(eq(1L), any(), any(), any())).thenReturn(Collections.singletonList(1L));
+
+        assertThrows(ConflictException.class, () -> teacherSchedule.book(session, () -> {
+            throw new AssertionError("saved");
+        }));
+    }
+
+    @Test
+    void givenSessionStoredByAnotherInstance_whenBook_thenLocksTheTeacherAndThrowsConflictWithoutSaving() {
+        Session session = session(null, 3L, 10 * HOUR);
+        when(sessionRepository.findOverlappingIds(eq(3L), any(), eq(new Date(10 * HOUR)), eq(new Date(11 * HOUR))))
+                .thenReturn(Collections.singletonList(7L));
+
+        ConflictException conflict = assertThrows(ConflictException.class, () -> teacherSchedule.book(session, () -> {
+            throw new AssertionError("saved");
+        }));
+
+        assertEquals("Teacher is already booked for session 7", conflict.getMessage());
+        verify(teacherRepository).lockAll(Collections.singletonList(3L));
+    }
+
+    @Test
+    void givenOnlyItsOwnRowStored_whenFindConflict_thenReturnsEmpty() {
+        when(sessionRepository.findOverlappingIds(eq(1L), any(), any(), any())).thenReturn(Collections.singletonList(1L));
+
+        assertEquals(Optional.empty(), teacherSchedule.findConflict(1L, 1L, new Date(10 * HOUR), new Date(11 * HOUR)));
+    }
+
+    @Test
+    void givenBackToBackSession_whenBook_thenSavesItAndIndexesItOnceChanged() {
+        Session session = session(null, 1L, 11 * HOUR);
+
+        teacherSchedule.book(session, () -> session.setId(3L));
+
+        assertEquals(3L, session.getId());
+        assertTrue(teacherSchedule.findBookings(1L, new Date(11 * HOUR), new Date(12 * HOUR)).isEmpty());
+
+        when(sessionRepository.findSlotsByIds(Collections.singletonList(3L)))
+                .thenReturn(Collections.singletonList(new SessionSlot(3L, 1L, new Date(11 * HOUR), 60)));
+        teacherSchedule.onSessionChanged(new SessionChangedEvent(3L));
+
+        assertEquals(Collections.singletonList(3L), ids(teacherSchedule.findBookings(1L, new Date(11 * HOUR), new Date(12 * HOUR))));
+    }
+
+    @Test
+    void givenSessionMovedToAnotherTeacher_whenSessionChanged_thenMovesIt() {
+        when(sessionRepository.findSlotsByIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(new SessionSlot(1L, 3L, new Date(10 * HOUR), 60)));
+
+        teacherSchedule.onSessionChanged(new SessionChangedEvent(1L));
+
+        assertTrue(teacherSchedule.findBookings(1L, new Date(0), new Date(24 * HOUR)).isEmpty());
+        assertEquals(Collections.singletonList(1L), ids(teacherSchedule.findBookings(3L, new Date(0), new Date(24 * HOUR))));
+    }
+
+    @Test
+    void givenDeletedSession_whenSessionChanged_thenRemovesIt() {
+        when(sessionRepository.findSlotsByIds(Collections.singletonList(2L))).thenReturn(Collections.emptyList());
+
+        teacherSchedule.onSessionChanged(new SessionChangedEvent(2L));
+
+        assertEquals(1, teacherSchedule.size());
+        assertTrue(teacherSchedule.findBookings(2L, new Date(0), new Date(24 * HOUR)).isEmpty());
+    }
+
+    @Test
+    void givenLongerSession_whenSessionChanged_thenReindexesItsNewEnd() {
+        when(sessionRepository.findSlotsByIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(new SessionSlot(1L, 1L, new Date(10 * HOUR), 120)));
+
+        teacherSchedule.onSessionChanged(new SessionChangedEvent(1L));
+
+        assertEquals(Collections.singletonList(1L), ids(teacherSchedule.findBookings(1L, new Date(11 * HOUR), new Date(12 * HOUR))));
+    }
+
+    @Test
+    void givenBatchOfChangedSessions_whenSessionChanged_thenReadsThemInOneQuery() {
+        when(sessionRepository.findSlotsByIds(Arrays.asList(1L, 2L, 7L)))
+                .thenReturn(Arrays.asList(new SessionSlot(1L, 1L, new Date(10 * HOUR), 120), new SessionSlot(7L, 3L, new Date(10 * HOUR), 60)));
+
+        teacherSchedule.onSessionChanged(new SessionChangedEvent(Arrays.asList(1L, 2L, 7L)));
+
+        assertEquals(2, teacherSchedule.size());
+        assertTrue(teacherSchedule.findBookings(2L, new Date(0), new Date(24 * HOUR)).isEmpty());
+        assertEquals(Collections.singletonList(7L), ids(teacherSchedule.findBookings(3L, new Date(0), new Date(24 * HOUR))));
+        verify(sessionRepository, times(1)).findSlotsByIds(anyCollection());
+    }
+
+    private static Session session(Long id, Long teacherId, long start) {
+        return Session.builder()
+                .id(id)
+                .teacher(Teacher.builder().id(teacherId).build())
+                .date(new Date(start))
+                .build();
+    }
+
+    private static List<Long> ids(List<IntervalTree.Interval> intervals) {
+        return intervals.stream().map(IntervalTree.Interval::getId).collect(Collectors.toList());
+    }
+}
@@ -2,12 +2,17 @@ package com.openclassrooms.starterjwt.unit.security.jwt;
 
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.PrincipalCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.impl.DefaultClaims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -21,6 +26,7 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -37,6 +43,12 @@ public class AuthTokenFilterTest {
     @Mock
     private FilterChain filterChain;
 
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Spy
+    private PrincipalCache principalCache = new PrincipalCache(100, 60_000);
+
     @InjectMocks
     private AuthTokenFilter authTokenFilter;
 
@@ -60,8 +72,7 @@ public class AuthTokenFilterTest {
                 .authorities(Collections.emptyList())
                 .build();
 
-        when(jwtUtils.validateJwtToken(token)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(token)).thenReturn("testUser");
+        when(jwtUtils.verifyJwtToken(token)).thenReturn(new DefaultClaims().setSubject("testUser"));
         when(userDetailsService.loadUserByUsername("testUser")).thenReturn(userDetails);
 
         authTokenFilter.doFilter(request, response, filterChain);
@@ -69,21 +80,80 @@ public class AuthTokenFilterTest {
         UsernamePasswordAuthenticationToken authentication =
                 (UsernamePasswordAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
         assertNotNull(authentication);
-        verify(jwtUtils, times(1)).validateJwtToken(token);
+        verify(jwtUtils, times(1)).verifyJwtToken(token);
+        verify(userDetailsService, times(1)).loadUserByUsername("testUser");
+    }
+
+    @Test
+    void givenRepeatedValidToken_whenDoFilter_thenLoadsUserOnce() throws ServletException, IOException {
+        String token = "validToken";
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        UserDetails userDetails = User
+                .withUsername("testUser")
+                .password("password")
+                .authorities(Collections.emptyList())
+                .build();
+
+        when(jwtUtils.verifyJwtToken(token)).thenReturn(new DefaultClaims().setSubject("testUser"));
+        when(userDetailsService.loadUserByUsername("testUser")).thenReturn(userDetails);
+
+        authTokenFilter.doFilter(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         verify(userDetailsService, times(1)).loadUserByUsername("testUser");
     }
 
+    @Test
+    void givenStatelessMode_whenDoFilter_thenBuildsPrincipalFromClaims() throws ServletException, IOException {
+        String token = "validToken";
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        Date issuedAt = new Date();
+        DefaultClaims claims = new DefaultClaims();
+        claims.setSubject("testUser");
+        claims.setIssuedAt(issuedAt);
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("testUser").admin(true).build();
+
+        when(jwtUtils.verifyJwtToken(token)).thenReturn(claims);
+        when(jwtUtils.isStatelessAuth()).thenReturn(true);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(principal);
+
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void givenRevokedToken_whenDoFilter_thenDoesNotSetAuthentication() throws ServletException, IOException {
+        String token = "revokedToken";
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        DefaultClaims claims = new DefaultClaims();
+        claims.setId("jti");
+        claims.setSubject("testUser");
+
+        when(jwtUtils.verifyJwtToken(token)).thenReturn(claims);
+        when(tokenRevocationList.isRevoked(claims)).thenReturn(true);
+
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain, times(1)).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+    }
+
     @Test
     void givenInvalidToken_whenDoFilter_thenDoesNotSetAuthentication() throws ServletException, IOException {
         String token = "invalidToken";
         request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
 
-        when(jwtUtils.validateJwtToken(token)).thenReturn(false);
+        when(jwtUtils.verifyJwtToken(token)).thenReturn(null);
 
         authTokenFilter.doFilter(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
-        verify(jwtUtils, times(1)).validateJwtToken(token);
+        verify(jwtUtils, times(1)).verifyJwtToken(token);
         verifyNoInteractions(userDetailsService);
     }
 
@@ -104,4 +174,70 @@ public class AuthTokenFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verifyNoInteractions(jwtUtils, userDetailsService);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenStreamTicketOnEventsPath_whenDoFilter_thenSetsAuthentication() throws ServletException, IOException {
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/api/session/1/events");
+        stream.setServletPath("/api/session/1/events");
+        stream.addParameter(AuthTokenFilter.STREAM_TICKET_PARAM, "ticket");
+        DefaultClaims claims = new DefaultClaims();
+        claims.setSubject("testUser");
+        UserDetails userDetails = User
+                .withUsername("testUser")
+                .password("password")
+                .authorities(Collections.emptyList())
+                .build();
+
+        when(jwtUtils.verifyJwtToken("ticket")).thenReturn(claims);
+        when(jwtUtils.isStreamTicket(claims)).thenReturn(true);
+        when(userDetailsService.loadUserByUsername("testUser")).thenReturn(userDetails);
+
+        authTokenFilter.doFilter(stream, response, filterChain);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void givenStreamTicketOutsideEventsPath_whenDoFilter_thenDoesNotSetAuthentication() throws ServletException, IOException {
+        MockHttpServletRequest other = new MockHttpServletRequest("GET", "/api/session/1");
+        other.setServletPath("/api/session/1");
+        other.addParameter(AuthTokenFilter.STREAM_TICKET_PARAM, "ticket");
+
+        authTokenFilter.doFilter(other, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(jwtUtils, userDetailsService);
+    }
+
+    @Test
+    void givenAccessTokenAsTicket_whenDoFilter_thenDoesNotSetAuthentication() throws ServletException, IOException {
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/api/session/events");
+        stream.setServletPath("/api/session/events");
+        stream.addParameter(AuthTokenFilter.STREAM_TICKET_PARAM, "accessToken");
+        DefaultClaims claims = new DefaultClaims();
+        claims.setSubject("testUser");
+
+        when(jwtUtils.verifyJwtToken("accessToken")).thenReturn(claims);
+        when(jwtUtils.isStreamTicket(claims)).thenReturn(false);
+
+        authTokenFilter.doFilter(stream, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void givenStreamTicketAsBearerToken_whenDoFilter_thenDoesNotSetAuthentication() throws ServletException, IOException {
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer ticket");
+        DefaultClaims claims = new DefaultClaims();
+        claims.setSubject("testUser");
+
+        when(jwtUtils.verifyJwtToken("ticket")).thenReturn(claims);
+        when(jwtUtils.isStreamTicket(claims)).thenReturn(true);
+
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+    }
+}
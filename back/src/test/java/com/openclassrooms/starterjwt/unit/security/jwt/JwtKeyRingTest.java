@@ -0,0 +1,137 @@
+package com.openclassrooms.starterjwt.unit.security.jwt;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtKeyRingTest {
+
+    @Test
+    void givenRotatedRing_whenParseTokenSignedWithPreviousKey_thenVerifies() throws Exception {
+        KeyPair previous = rsaKeyPair();
+        KeyPair current = rsaKeyPair();
+        JwtKeyRing before = ring("2024-01", previous, keys("2024-01", previous));
+        JwtKeyRing after = ring("2024-02", current, keys("2024-01", previous, "2024-02", current));
+
+        Claims claims = Jwts.parser().setSigningKeyResolver(after).parseClaimsJws(sign(before)).getBody();
+
+        assertEquals("yoga@studio.com", claims.getSubject());
+        assertEquals("2024-02", after.getActiveKeyId());
+    }
+
+    @Test
+    void givenNoKeystoreAndNoEphemeralKeyFlag_whenCreate_thenFailsStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> new JwtKeyRing("", "", "", false, new DefaultResourceLoader()));
+    }
+
+    @Test
+    void givenNoKeystoreAndEphemeralKeyFlag_whenCreate_thenSignsWithGeneratedKey() throws Exception {
+        JwtKeyRing keyRing = new JwtKeyRing("", "", "", true, new DefaultResourceLoader());
+
+        assertEquals(SignatureAlgorithm.RS256, keyRing.getAlgorithm());
+        assertEquals(1, keyRing.getVerificationKeys().size());
+    }
+
+    @Test
+    void givenUnknownKeyId_whenParse_thenThrowsSignatureException() throws Exception {
+        KeyPair retired = rsaKeyPair();
+        KeyPair current = rsaKeyPair();
+        String token = sign(ring("retired", retired, keys("retired", retired)));
+        JwtKeyRing keyRing = ring("current", current, keys("current", current));
+
+        assertThrows(SignatureException.class, () -> Jwts.parser().setSigningKeyResolver(keyRing).parseClaimsJws(token));
+    }
+
+    @Test
+    void givenHmacTokenWithKnownKeyId_whenParse_thenThrowsSignatureException() throws Exception {
+        KeyPair current = rsaKeyPair();
+        JwtKeyRing keyRing = ring("current", current, keys("current", current));
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "current")
+                .setSubject("yoga@studio.com")
+                .signWith(SignatureAlgorithm.HS256, current.getPublic().getEncoded())
+                .compact();
+
+        assertThrows(SignatureException.class, () -> Jwts.parser().setSigningKeyResolver(keyRing).parseClaimsJws(token));
+    }
+
+    @Test
+    void givenEcKey_whenSignAndParse_thenUsesEs256() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        JwtKeyRing keyRing = ring("ec", keyPair, keys("ec", keyPair));
+
+        Claims claims = Jwts.parser().setSigningKeyResolver(keyRing).parseClaimsJws(sign(keyRing)).getBody();
+
+        assertEquals(SignatureAlgorithm.ES256, keyRing.getAlgorithm());
+        assertEquals("yoga@studio.com", claims.getSubject());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenRing_whenGetJwks_thenPublishesEveryPublicKey() throws Exception {
+        KeyPair previous = rsaKeyPair();
+        KeyPair current = rsaKeyPair();
+        JwtKeyRing keyRing = ring("2024-02", current, keys("2024-01", previous, "2024-02", current));
+
+        List<Map<String, Object>> jwks = (List<Map<String, Object>>) keyRing.getJwks().get("keys");
+
+        assertEquals(2, jwks.size());
+        assertEquals("2024-01", jwks.get(0).get("kid"));
+        assertEquals("RSA", jwks.get(1).get("kty"));
+        assertEquals("RS256", jwks.get(1).get("alg"));
+        assertEquals("AQAB", jwks.get(1).get("e"));
+        assertFalse(jwks.get(1).containsKey("d"));
+        assertSame(jwks, keyRing.getJwks().get("keys"));
+    }
+
+    @Test
+    void givenActiveKeyOutsideRing_whenCreate_thenThrows() throws Exception {
+        KeyPair keyPair = rsaKeyPair();
+
+        assertThrows(IllegalArgumentException.class, () -> ring("missing", keyPair, keys("other", keyPair)));
+    }
+
+    private static String sign(JwtKeyRing keyRing) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+                .setSubject("yoga@studio.com")
+                .signWith(keyRing.getAlgorithm(), keyRing.getSigningKey())
+                .compact();
+    }
+
+    private static JwtKeyRing ring(String activeKeyId, KeyPair signing, Map<String, PublicKey> keys) {
+        return new JwtKeyRing(activeKeyId, signing.getPrivate(), keys);
+    }
+
+    private static Map<String, PublicKey> keys(Object... keyIdsAndPairs) {
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        for (int i = 0; i < keyIdsAndPairs.length; i += 2) {
+            keys.put((String) keyIdsAndPairs[i], ((KeyPair) keyIdsAndPairs[i + 1]).getPublic());
+        }
+        return keys;
+    }
+
+    private static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
@@ -0,0 +1,189 @@
+package com.openclassrooms.starterjwt.unit.security.jwt;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtUtilsTest {
+
+    private static JwtKeyRing keyRing;
+
+    private static JwtKeyRing otherKeyRing;
+
+    @Spy
+    private VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(100, 60_000);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private JwtUtils jwtUtils;
+
+    @BeforeAll
+    static void generateKeys() throws GeneralSecurityException {
+        keyRing = JwtKeyRing.ephemeral();
+        otherKeyRing = JwtKeyRing.ephemeral();
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtils, "keyRing", keyRing);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+    }
+
+    @Test
+    void givenGeneratedToken_whenVerifyJwtToken_thenReturnsClaims() {
+        String token = jwtUtils.generateJwtToken(authentication("yoga@studio.com"));
+
+        Claims claims = jwtUtils.verifyJwtToken(token);
+
+        assertNotNull(claims);
+        assertEquals("yoga@studio.com", claims.getSubject());
+        assertNotNull(claims.getId());
+        assertEquals(1, claims.get(JwtUtils.ID_CLAIM, Number.class).intValue());
+        assertEquals(true, claims.get(JwtUtils.ADMIN_CLAIM, Boolean.class));
+        assertEquals("yoga@studio.com", jwtUtils.getUserNameFromJwtToken(token));
+        assertTrue(jwtUtils.validateJwtToken(token));
+    }
+
+    @Test
+    void givenVerifiedToken_whenVerifyJwtTokenAgain_thenServesClaimsFromCache() {
+        String token = jwtUtils.generateJwtToken(authentication("yoga@studio.com"));
+
+        Claims first = jwtUtils.verifyJwtToken(token);
+        Claims second = jwtUtils.verifyJwtToken(token);
+
+        assertSame(first, second);
+        verify(verifiedTokenCache, times(1)).putVerified(eq(token), any(Claims.class));
+        assertEquals(1, verifiedTokenCache.getHitCount());
+    }
+
+    @Test
+    void givenStatelessMode_whenGenerateJwtToken_thenTokenIsShortLivedAndCarriesPrincipal() {
+        ReflectionTestUtils.setField(jwtUtils, "statelessAuth", true);
+        ReflectionTestUtils.setField(jwtUtils, "statelessJwtExpirationMs", 5_000);
+
+        Claims claims = jwtUtils.verifyJwtToken(jwtUtils.generateJwtToken(authentication("yoga@studio.com")));
+        UserDetailsImpl principal = jwtUtils.getUserDetailsFromClaims(claims);
+
+        assertTrue(claims.getExpiration().getTime() - System.currentTimeMillis() <= 5_000);
+        assertEquals(1L, principal.getId());
+        assertEquals("yoga@studio.com", principal.getUsername());
+        assertEquals("Yoga", principal.getFirstName());
+        assertEquals("Studio", principal.getLastName());
+        assertTrue(principal.getAdmin());
+    }
+
+    @Test
+    void givenStreamTicket_whenVerifyJwtToken_thenTicketIsShortLivedAndOnlyForStreams() {
+        ReflectionTestUtils.setField(jwtUtils, "streamTicketExpirationMs", 30_000);
+        UserDetailsImpl principal = (UserDetailsImpl) authentication("yoga@studio.com").getPrincipal();
+
+        Claims ticket = jwtUtils.verifyJwtToken(jwtUtils.generateStreamTicket(principal));
+        Claims token = jwtUtils.verifyJwtToken(jwtUtils.generateJwtToken(principal));
+
+        assertEquals("yoga@studio.com", ticket.getSubject());
+        assertTrue(ticket.getExpiration().getTime() - System.currentTimeMillis() <= 30_000);
+        assertTrue(jwtUtils.isStreamTicket(ticket));
+        assertFalse(jwtUtils.isStreamTicket(token));
+    }
+
+    @Test
+    void givenClaimsWithoutId_whenGetUserDetailsFromClaims_thenReturnsNull() {
+        Claims claims = Jwts.claims().setSubject("yoga@studio.com");
+
+        assertNull(jwtUtils.getUserDetailsFromClaims(claims));
+    }
+
+    @Test
+    void givenGeneratedToken_whenInspectHeader_thenSignedWithActiveKey() {
+        String token = jwtUtils.generateJwtToken(authentication("yoga@studio.com"));
+
+        JwsHeader<?> header = Jwts.parser().setSigningKeyResolver(keyRing).parseClaimsJws(token).getHeader();
+
+        assertEquals(keyRing.getActiveKeyId(), header.getKeyId());
+        assertEquals(SignatureAlgorithm.RS256.getValue(), header.getAlgorithm());
+    }
+
+    @Test
+    void givenTokenSignedWithOtherKey_whenVerifyJwtToken_thenReturnsNull() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+                .setSubject("yoga@studio.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.RS256, otherKeyRing.getSigningKey())
+                .compact();
+
+        assertNull(jwtUtils.verifyJwtToken(token));
+        assertFalse(jwtUtils.validateJwtToken(token));
+        verify(verifiedTokenCache, never()).putVerified(any(), any());
+        assertEquals(2.0, meterRegistry.counter("jwt.validation.failures", "reason", "signature").count());
+    }
+
+    @Test
+    void givenExpiredToken_whenVerifyJwtToken_thenReturnsNull() {
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+                .setSubject("yoga@studio.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(keyRing.getAlgorithm(), keyRing.getSigningKey())
+                .compact();
+
+        assertNull(jwtUtils.verifyJwtToken(token));
+        assertEquals(1.0, meterRegistry.counter("jwt.validation.failures", "reason", "expired").count());
+    }
+
+    @Test
+    void givenLegacyHmacToken_whenVerifyJwtToken_thenReturnsNull() {
+        String token = Jwts.builder()
+                .setSubject("yoga@studio.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "openclassrooms")
+                .compact();
+
+        assertNull(jwtUtils.verifyJwtToken(token));
+    }
+
+    @Test
+    void givenMalformedToken_whenVerifyJwtToken_thenReturnsNull() {
+        assertNull(jwtUtils.verifyJwtToken("not-a-jwt"));
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication(String username) {
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(1L)
+                .username(username)
+                .firstName("Yoga")
+                .lastName("Studio")
+                .admin(true)
+                .password("password")
+                .build();
+
+        return new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.unit.security.jwt;
+
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRevocationListTest {
+
+    private final TokenRevocationList tokenRevocationList = new TokenRevocationList(100, 60_000);
+
+    @Test
+    void givenNoRevocation_whenIsRevoked_thenReturnsFalse() {
+        assertFalse(tokenRevocationList.isRevoked("user@example.com", new Date()));
+    }
+
+    @Test
+    void givenRevokedUser_whenIsRevoked_thenRejectsTokensIssuedBefore() {
+        Date issuedBefore = new Date(System.currentTimeMillis() - 1_000);
+
+        tokenRevocationList.revoke("user@example.com");
+
+        assertTrue(tokenRevocationList.isRevoked("user@example.com", issuedBefore));
+        assertFalse(tokenRevocationList.isRevoked("other@example.com", issuedBefore));
+    }
+
+    @Test
+    void givenRevokedUser_whenIsRevokedWithLaterToken_thenReturnsFalse() {
+        tokenRevocationList.revoke("user@example.com");
+
+        assertFalse(tokenRevocationList.isRevoked("user@example.com", new Date(System.currentTimeMillis() + 60_000)));
+    }
+
+    @Test
+    void givenRevokedToken_whenIsRevoked_thenReturnsTrueOnlyForThatToken() {
+        tokenRevocationList.revokeToken("jti-1", new Date(System.currentTimeMillis() + 60_000));
+
+        assertTrue(tokenRevocationList.isTokenRevoked("jti-1"));
+        assertFalse(tokenRevocationList.isTokenRevoked("jti-2"));
+        assertTrue(tokenRevocationList.isRevoked(Jwts.claims().setId("jti-1").setSubject("user@example.com")));
+    }
+
+    @Test
+    void givenExpiredRevocation_whenPurgeExpired_thenForgetsItAndKeepsLiveOnes() {
+        tokenRevocationList.revokeToken("expired", new Date(System.currentTimeMillis() - 1_000));
+        tokenRevocationList.revokeToken("live", new Date(System.currentTimeMillis() + 60_000));
+
+        tokenRevocationList.purgeExpired();
+
+        assertEquals(1, tokenRevocationList.size());
+        assertFalse(tokenRevocationList.isTokenRevoked("expired"));
+        assertTrue(tokenRevocationList.isTokenRevoked("live"));
+    }
+
+    @Test
+    void givenOlderRevocationFromAnotherInstance_whenRevoke_thenKeepsTheLatest() {
+        long now = System.currentTimeMillis();
+        tokenRevocationList.revoke("user@example.com", now);
+
+        tokenRevocationList.revoke("user@example.com", now - 30_000);
+
+        assertTrue(tokenRevocationList.isRevoked("user@example.com", new Date(now - 10_000)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.unit.security.services;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import com.openclassrooms.starterjwt.security.services.PooledPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PooledPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PooledPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        if (passwordEncoder != null) {
+            passwordEncoder.destroy();
+        }
+    }
+
+    @Test
+    void givenIdlePool_whenEncodeAndMatches_thenDelegatesToBCrypt() {
+        passwordEncoder = new PooledPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, 5_000, meterRegistry);
+
+        String hash = passwordEncoder.encode("test!1234");
+
+        assertTrue(passwordEncoder.matches("test!1234", hash));
+        assertFalse(passwordEncoder.matches("wrong", hash));
+        assertNotNull(meterRegistry.find("password.hashing.rejected").counter());
+    }
+
+    @Test
+    void givenSaturatedPool_whenEncode_thenThrowsTooManyRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        passwordEncoder = new PooledPasswordEncoder(delegate, 1, 0, 5_000, meterRegistry);
+
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(TooManyRequestsException.class, () -> passwordEncoder.encode("second"));
+        assertEquals(1.0, meterRegistry.counter("password.hashing.rejected").count());
+
+        release.countDown();
+        assertEquals("hash", busy.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void givenSlowDelegate_whenTimeoutElapses_thenThrowsTooManyRequests() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.matches(any(), any())).thenAnswer(invocation -> release.await(5, TimeUnit.SECONDS));
+        passwordEncoder = new PooledPasswordEncoder(delegate, 1, 1, 50, meterRegistry);
+
+        assertThrows(TooManyRequestsException.class, () -> passwordEncoder.matches("password", "hash"));
+        release.countDown();
+    }
+}
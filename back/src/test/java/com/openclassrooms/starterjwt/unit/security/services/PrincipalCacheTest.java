@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.unit.security.services;
+
+import com.openclassrooms.starterjwt.events.UserDeletedEvent;
+import com.openclassrooms.starterjwt.security.services.PrincipalCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PrincipalCacheTest {
+
+    private final PrincipalCache principalCache = new PrincipalCache(100, 60_000);
+
+    @Test
+    void givenCachedPrincipal_whenUserDeleted_thenLoadsItAgain() {
+        AtomicInteger loads = new AtomicInteger();
+        principalCache.get("user@example.com", username -> load(username, loads));
+        principalCache.get("other@example.com", username -> load(username, loads));
+
+        principalCache.onUserDeleted(new UserDeletedEvent("user@example.com"));
+        principalCache.get("user@example.com", username -> load(username, loads));
+        principalCache.get("other@example.com", username -> load(username, loads));
+
+        assertEquals(3, loads.get());
+    }
+
+    private static UserDetails load(String username, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return UserDetailsImpl.builder().username(username).build();
+    }
+}
@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.unit.security.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,6 +35,7 @@ public class UserDetailsServiceTest {
 
         assertNotNull(userDetails);
         assertEquals("user@example.com", userDetails.getUsername());
+        assertFalse(((UserDetailsImpl) userDetails).getAdmin());
         verify(userRepository, times(1)).findByEmail("user@example.com");
     }
 
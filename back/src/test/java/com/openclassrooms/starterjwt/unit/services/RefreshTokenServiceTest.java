@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.openclassrooms.starterjwt.exception.UnauthorizedException;
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenDigests;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, 60_000);
+    }
+
+    @Test
+    void givenUser_whenIssue_thenStoresOnlyTheTokenDigest() {
+        String token = refreshTokenService.issue(1L);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(TokenDigests.sha256(token), saved.getValue().getTokenHash());
+        assertEquals(1L, saved.getValue().getUserId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void givenValidToken_whenRotate_thenConsumesItAndIssuesAnother() {
+        RefreshToken current = RefreshToken.builder().id(5L).userId(1L).expiresAt(LocalDateTime.now().plusMinutes(1)).build();
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("token"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.deleteEntry(5L)).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("token");
+
+        assertEquals(1L, rotation.getUserId());
+        assertNotEquals("token", rotation.getRefreshToken());
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void givenAlreadyConsumedToken_whenRotate_thenThrowsUnauthorized() {
+        RefreshToken current = RefreshToken.builder().id(5L).userId(1L).expiresAt(LocalDateTime.now().plusMinutes(1)).build();
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("token"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.deleteEntry(5L)).thenReturn(0);
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("token"));
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void givenExpiredToken_whenRotate_thenThrowsUnauthorized() {
+        RefreshToken current = RefreshToken.builder().id(5L).userId(1L).expiresAt(LocalDateTime.now().minusMinutes(1)).build();
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("token"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.deleteEntry(5L)).thenReturn(1);
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("token"));
+    }
+
+    @Test
+    void givenUnknownToken_whenRotate_thenThrowsUnauthorized() {
+        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("unknown"));
+    }
+}
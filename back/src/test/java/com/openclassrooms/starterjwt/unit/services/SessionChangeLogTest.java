@@ -0,0 +1,142 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.models.SessionChangeTicket;
+import com.openclassrooms.starterjwt.repository.SessionChangeTicketRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.services.SessionChangeLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionChangeLogTest {
+
+    private static final long SETTLE_MS = 60_000;
+
+    @Mock
+    private SessionChangeTicketRepository ticketRepository;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SessionChangeLog sessionChangeLog;
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+        sessionChangeLog = new SessionChangeLog(ticketRepository, sessionRepository, transactionManager, SETTLE_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void givenSessionsChangedInOneTransaction_whenOnSessionChanged_thenStampsThemWithOneNumber() {
+        when(ticketRepository.save(any(SessionChangeTicket.class))).thenReturn(ticket(8L, LocalDateTime.now()));
+
+        sessionChangeLog.onSessionChanged(new SessionChangedEvent(3L));
+        sessionChangeLog.onSessionChanged(new SessionChangedEvent(4L));
+
+        verify(ticketRepository, times(1)).save(any(SessionChangeTicket.class));
+        verify(sessionRepository).stampChanges(Collections.singletonList(3L), 8L);
+        verify(sessionRepository).stampChanges(Collections.singletonList(4L), 8L);
+    }
+
+    @Test
+    void givenBatchOfSessions_whenOnSessionChanged_thenStampsThemInOneUpdate() {
+        when(ticketRepository.save(any(SessionChangeTicket.class))).thenReturn(ticket(8L, LocalDateTime.now()));
+
+        sessionChangeLog.onSessionChanged(new SessionChangedEvent(Arrays.asList(3L, 4L, 5L)));
+
+        verify(sessionRepository, times(1)).stampChanges(Arrays.asList(3L, 4L, 5L), 8L);
+        verifyNoMoreInteractions(sessionRepository);
+    }
+
+    @Test
+    void givenTransactionRolledBack_whenCompleted_thenFillsItsNumber() {
+        when(ticketRepository.save(any(SessionChangeTicket.class))).thenReturn(ticket(8L, LocalDateTime.now()));
+        sessionChangeLog.next();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(ticketRepository).fill(eq(8L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void givenTransactionCommitted_whenCompleted_thenKeepsItsNumber() {
+        when(ticketRepository.save(any(SessionChangeTicket.class))).thenReturn(ticket(8L, LocalDateTime.now()));
+        sessionChangeLog.next();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(ticketRepository, never()).fill(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void givenRecentGap_whenLast_thenStopsBeforeIt() {
+        LocalDateTime now = LocalDateTime.now();
+        when(ticketRepository.findAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(ticket(1L, now), ticket(2L, now), ticket(4L, now)));
+
+        assertEquals(2L, sessionChangeLog.last());
+    }
+
+    @Test
+    void givenGapOlderThanSettleTime_whenLast_thenSkipsIt() {
+        LocalDateTime now = LocalDateTime.now();
+        when(ticketRepository.findAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(ticket(1L, now.minusHours(1)), ticket(3L, now.minusHours(1)), ticket(4L, now)));
+
+        assertEquals(4L, sessionChangeLog.last());
+    }
+
+    @Test
+    void givenSettledNumbers_whenLastAgain_thenScansOnlyPastThem() {
+        LocalDateTime now = LocalDateTime.now();
+        when(ticketRepository.findAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(ticket(1L, now), ticket(2L, now)));
+        when(ticketRepository.findAfter(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        sessionChangeLog.last();
+
+        assertEquals(2L, sessionChangeLog.last());
+        verify(ticketRepository, times(1)).findAfter(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void givenSettledTickets_whenPurgeSettled_thenKeepsTheNewestOfThem() {
+        when(ticketRepository.findLastSeqBefore(any(LocalDateTime.class))).thenReturn(5L);
+
+        sessionChangeLog.purgeSettled();
+
+        verify(ticketRepository).deleteBefore(5L);
+    }
+
+    private static SessionChangeTicket ticket(Long seq, LocalDateTime createdAt) {
+        return SessionChangeTicket.builder().seq(seq).createdAt(createdAt).build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.SessionExportService;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionExportServiceTest {
+
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private SessionMapper sessionMapper;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private SessionExportService sessionExportService;
+
+    private final List<SessionSummary> summaries = Collections.singletonList(
+            new SessionSummary(1L, "Yoga", new Date(0L), 60, "Yoga session", 1L, null, 0, null, null));
+
+    private final Map<Long, List<Long>> participants = Collections.singletonMap(1L, Arrays.asList(1L, 2L));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sessionExportService = new SessionExportService(sessionService, sessionMapper, objectMapper);
+        doAnswer(invocation -> {
+            SessionService.ExportChunkHandler handler = invocation.getArgument(0);
+            handler.accept(summaries, participants);
+            handler.accept(summaries, participants);
+            return null;
+        }).when(sessionService).exportAll(any());
+    }
+
+    @Test
+    void givenSessions_whenWriteNdjson_thenWritesOneJsonObjectPerLine() throws Exception {
+        when(sessionMapper.toDto(summaries, participants)).thenReturn(Collections.singletonList(dto("Yoga")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        sessionExportService.writeNdjson(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("Yoga", first.get("name").asText());
+        assertEquals(2, first.get("users").size());
+    }
+
+    @Test
+    void givenTextWithSeparatorsAndFormula_whenWriteCsv_thenEscapesCells() throws Exception {
+        when(sessionMapper.toDto(summaries, participants)).thenReturn(Collections.singletonList(dto("=Yoga, \"flow\"")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        sessionExportService.writeCsv(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,name,date,duration,teacher_id,description,capacity,seats_taken,users,created_at,updated_at", lines[0]);
+        assertEquals("1,\"'=Yoga, \"\"flow\"\"\",1970-01-01T00:00:00Z,60,1,Yoga session,,2,1 2,,", lines[1]);
+    }
+
+    private static SessionDto dto(String name) {
+        return new SessionDto(1L, name, new Date(0L), 60, 1L, "Yoga session", null, 2, Arrays.asList(1L, 2L), null, null);
+    }
+}
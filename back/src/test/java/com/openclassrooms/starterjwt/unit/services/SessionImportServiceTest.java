@@ -0,0 +1,183 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.payload.response.SessionImportResponse;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import com.openclassrooms.starterjwt.services.SessionImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TeacherRepository teacherRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TeacherSchedule teacherSchedule;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SessionImportService sessionImportService;
+
+    @BeforeEach
+    void setUp() {
+        sessionImportService = new SessionImportService(jdbcTemplate, transactionTemplate, teacherRepository, userRepository, teacherSchedule,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), eventPublisher, 2);
+    }
+
+    @Test
+    void givenValidAndInvalidLines_whenImportNdjson_thenInsertsValidRowsAndReportsOthers() throws Exception {
+        runTransactions();
+        when(teacherRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1L));
+        when(userRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1L));
+        when(jdbcTemplate.<List<Long>>execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class)))
+                .thenReturn(Collections.singletonList(10L));
+
+        SessionImportResponse response = sessionImportService.importNdjson(body(
+                "{\"name\":\"Yoga\",\"date\":0,\"teacher_id\":1,\"description\":\"Yoga\",\"users\":[1,1]}\n" +
+                "{\"name\":\n" +
+                "\n" +
+                "{\"date\":0,\"teacher_id\":1,\"description\":\"Yoga\"}\n" +
+                "{\"name\":\"Yoga\",\"date\":0,\"teacher_id\":1,\"description\":\"Yoga\",\"users\":[2]}\n"));
+
+        assertEquals(Collections.singletonList(10L), response.getCreated());
+        assertEquals(Arrays.asList(2L, 4L, 5L), rows(response));
+        assertEquals(Collections.singletonList("name: must not be blank"), response.getErrors().get(1).getMessages());
+        assertEquals(Collections.singletonList("Unknown user ids: [2]"), response.getErrors().get(2).getMessages());
+        verify(jdbcTemplate).batchUpdate(eq("insert into PARTICIPATE (session_id, user_id) values (?, ?)"), anyList());
+        verify(eventPublisher).publishEvent(argThat((SessionChangedEvent event) ->
+                event.getSessionIds().equals(Collections.singletonList(10L))));
+    }
+
+    @Test
+    void givenMoreRowsThanChunk_whenImportCsv_thenInsertsOneBatchPerChunk() throws Exception {
+        runTransactions();
+        when(teacherRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1L));
+        when(jdbcTemplate.<List<Long>>execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class)))
+                .thenReturn(Arrays.asList(10L, 11L), Collections.singletonList(12L));
+
+        SessionImportResponse response = sessionImportService.importCsv(body(
+                "name,date,teacher_id,description,capacity\r\n" +
+                "Yoga,2025-02-01T10:00:00Z,1,\"Morning, \"\"slow\"\"\nflow\",10\r\n" +
+                "Pilate,2025-02-01T11:00:00Z,1,'=Core,\r\n" +
+                "Stretch,yesterday,1,Stretch,\r\n" +
+                "Stretch,2025-02-01T12:00:00Z,1,Stretch,\r\n"));
+
+        assertEquals(Arrays.asList(10L, 11L, 12L), response.getCreated());
+        assertEquals(Collections.singletonList(3L), rows(response));
+        assertEquals("Invalid date: yesterday", response.getErrors().get(0).getMessages().get(0));
+        verify(jdbcTemplate, times(2)).execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(eventPublisher, times(2)).publishEvent(any(SessionChangedEvent.class));
+        verify(eventPublisher).publishEvent(argThat((SessionChangedEvent event) ->
+                event.getSessionIds().equals(Arrays.asList(10L, 11L))));
+    }
+
+    @Test
+    void givenFailingChunk_whenImportNdjson_thenReportsRolledBackRows() throws Exception {
+        runTransactions();
+        when(teacherRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1L));
+        when(jdbcTemplate.<List<Long>>execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        SessionImportResponse response = sessionImportService.importNdjson(body(
+                "{\"name\":\"Yoga\",\"date\":0,\"teacher_id\":1,\"description\":\"Yoga\"}\n"));
+
+        assertTrue(response.getCreated().isEmpty());
+        assertEquals(Collections.singletonList(1L), rows(response));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void givenRowsBookingTheSameTeacher_whenImportCsv_thenRejectsOverlappingRows() throws Exception {
+        runTransactions();
+        when(teacherRepository.findExistingIds(any())).thenReturn(Collections.singletonList(1L));
+        when(teacherSchedule.findConflict(eq(1L), isNull(), any(), any())).thenReturn(Optional.empty());
+        when(teacherSchedule.findConflict(1L, null, Date.from(Instant.parse("2025-02-01T12:00:00Z")), Date.from(Instant.parse("2025-02-01T13:00:00Z"))))
+                .thenReturn(Optional.of(7L));
+        when(jdbcTemplate.<List<Long>>execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class)))
+                .thenReturn(Collections.singletonList(10L), Collections.singletonList(11L));
+
+        SessionImportResponse response = sessionImportService.importCsv(body(
+                "name,date,duration,teacher_id,description\r\n" +
+                "Yoga,2025-02-01T10:00:00Z,90,1,Yoga\r\n" +
+                "Pilate,2025-02-01T11:00:00Z,,1,Pilate\r\n" +
+                "Stretch,2025-02-01T11:30:00Z,30,1,Stretch\r\n" +
+                "Flow,2025-02-01T12:00:00Z,,1,Flow\r\n"));
+
+        assertEquals(Arrays.asList(10L, 11L), response.getCreated());
+        assertEquals(Arrays.asList(2L, 4L), rows(response));
+        assertEquals("Teacher is already booked by row 1", response.getErrors().get(0).getMessages().get(0));
+        assertEquals("Teacher is already booked for session 7", response.getErrors().get(1).getMessages().get(0));
+        verify(teacherSchedule, times(2)).lock(Collections.singleton(1L));
+    }
+
+    @Test
+    void givenCsvWithoutRequiredColumns_whenImportCsv_thenThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> sessionImportService.importCsv(body("name,date\r\nYoga,2025-02-01T10:00:00Z\r\n")));
+    }
+
+    private void runTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Long> rows(SessionImportResponse response) {
+        return response.getErrors().stream().map(SessionImportResponse.RowError::getRow).collect(Collectors.toList());
+    }
+}
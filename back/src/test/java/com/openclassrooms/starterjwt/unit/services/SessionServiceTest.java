@@ -1,21 +1,45 @@
 package com.openclassrooms.starterjwt.unit.services;
 
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.ParticipationStatus;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.pagination.SessionCursor;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import com.openclassrooms.starterjwt.services.SessionChangeLog;
+import com.openclassrooms.starterjwt.services.SessionReadCoalescer;
 import com.openclassrooms.starterjwt.services.SessionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +51,27 @@ public class SessionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private SessionDeletionRepository sessionDeletionRepository;
+
+    @Mock
+    private SessionChangeLog sessionChangeLog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TeacherSchedule teacherSchedule;
+
+    @Spy
+    private SessionReadCoalescer readCoalescer = new SessionReadCoalescer(100, 0);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private SessionService sessionService;
 
@@ -34,6 +79,7 @@ public class SessionServiceTest {
     void givenValidSession_whenCreate_thenReturnsCreatedSession() {
         Session session = new Session();
         when(sessionRepository.save(session)).thenReturn(session);
+        bookThroughSchedule();
 
         Session result = sessionService.create(session);
 
@@ -41,6 +87,28 @@ public class SessionServiceTest {
         verify(sessionRepository, times(1)).save(session);
     }
 
+    @Test
+    void givenTeacherAlreadyBooked_whenCreate_thenThrowsConflictWithoutSaving() {
+        Session session = Session.builder().teacher(Teacher.builder().id(1L).build()).date(new Date()).build();
+        when(teacherSchedule.book(eq(session), any())).thenThrow(new ConflictException("Teacher is already booked for session 2"));
+
+        assertThrows(ConflictException.class, () -> sessionService.create(session));
+
+        verify(sessionRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void givenNoDuration_whenCreate_thenDefaultsToOneHour() {
+        Session session = Session.builder().duration(null).build();
+        when(sessionRepository.save(session)).thenReturn(session);
+        bookThroughSchedule();
+
+        sessionService.create(session);
+
+        assertEquals(SessionService.DEFAULT_DURATION, session.getDuration());
+    }
+
     @Test
     void givenSessionsExist_whenFindAll_thenReturnsListOfSessions() {
         List<Session> sessions = Arrays.asList(new Session(), new Session());
@@ -52,6 +120,134 @@ public class SessionServiceTest {
         verify(sessionRepository, times(1)).findAll();
     }
 
+    @Test
+    void givenMoreSessionsThanChunk_whenExportAll_thenHandsOverChunksWithParticipants() throws Exception {
+        List<SessionSummary> sessions = new ArrayList<>();
+        for (long id = 1; id <= SessionService.EXPORT_CHUNK_SIZE + 1; id++) {
+            sessions.add(new SessionSummary(id, "Yoga", new Date(), 60, "Yoga session", 1L, null, 0, null, null));
+        }
+        when(sessionRepository.streamAll()).thenReturn(sessions.stream());
+        when(sessionRepository.findParticipants(any())).thenReturn(
+                Collections.singletonList(new Object[]{1L, 2L}), Collections.emptyList());
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Map<Long, List<Long>>> chunkParticipants = new ArrayList<>();
+
+        sessionService.exportAll((chunk, participants) -> {
+            chunkSizes.add(chunk.size());
+            chunkParticipants.add(participants);
+        });
+
+        assertEquals(Arrays.asList(SessionService.EXPORT_CHUNK_SIZE, 1), chunkSizes);
+        assertEquals(Collections.singletonList(2L), chunkParticipants.get(0).get(1L));
+        assertTrue(chunkParticipants.get(1).isEmpty());
+    }
+
+    @Test
+    void givenNoCursor_whenFindPage_thenQueriesFromRangeStart() {
+        Date from = new Date(1000L);
+        Date to = new Date(2000L);
+        Slice<SessionSummary> page = new SliceImpl<>(Collections.singletonList(
+                new SessionSummary(1L, "Yoga", from, 60, "Yoga session", 1L, null, 0, null, null)));
+        when(sessionRepository.findPage(from, 0L, to, PageRequest.of(0, SessionService.DEFAULT_PAGE_SIZE))).thenReturn(page);
+
+        Slice<SessionSummary> result = sessionService.findPage(null, from, to, null, null);
+
+        assertEquals(page, result);
+    }
+
+    @Test
+    void givenCursorAndTeacher_whenFindPage_thenQueriesAfterCursor() {
+        Date cursorDate = new Date(1500L);
+        SessionCursor cursor = new SessionCursor(cursorDate, 7L);
+        Slice<SessionSummary> page = new SliceImpl<>(Collections.emptyList());
+        when(sessionRepository.findPageByTeacher(eq(3L), eq(cursorDate), eq(7L), any(Date.class), eq(PageRequest.of(0, SessionService.MAX_PAGE_SIZE))))
+                .thenReturn(page);
+
+        Slice<SessionSummary> result = sessionService.findPage(cursor, new Date(1000L), null, 3L, 10_000);
+
+        assertEquals(page, result);
+        verify(sessionRepository, never()).findPage(any(), any(), any(), any());
+    }
+
+    @Test
+    void givenNoRangeNorCursor_whenFindPage_thenQueriesFromNow() {
+        Slice<SessionSummary> page = new SliceImpl<>(Collections.emptyList());
+        Date before = new Date();
+        when(sessionRepository.findPage(argThat((Date from) -> !from.before(before)), eq(0L), any(Date.class), any()))
+                .thenReturn(page);
+
+        Slice<SessionSummary> result = sessionService.findPage(null, null, null, null, null);
+
+        assertEquals(page, result);
+    }
+
+    @Test
+    void givenPastCursorWithoutRange_whenFindPage_thenKeepsPagingFromCursor() {
+        Date cursorDate = new Date(1500L);
+        Slice<SessionSummary> page = new SliceImpl<>(Collections.emptyList());
+        when(sessionRepository.findPage(eq(cursorDate), eq(7L), any(Date.class), any())).thenReturn(page);
+
+        Slice<SessionSummary> result = sessionService.findPage(new SessionCursor(cursorDate, 7L), null, null, null, null);
+
+        assertEquals(page, result);
+    }
+
+    @Test
+    void givenNoCursor_whenFindPageByParticipant_thenQueriesUpcomingSessionsFromNow() {
+        Slice<SessionSummary> page = new SliceImpl<>(Collections.emptyList());
+        when(sessionRepository.findPageByParticipantAfter(eq(2L), any(Date.class), eq(0L), eq(PageRequest.of(0, 5))))
+                .thenReturn(page);
+        Date before = new Date();
+
+        Slice<SessionSummary> result = sessionService.findPageByParticipant(2L, false, null, 5);
+
+        assertEquals(page, result);
+        verify(sessionRepository).findPageByParticipantAfter(eq(2L), argThat((Date now) -> !now.before(before)), eq(0L), any());
+        verify(sessionRepository, never()).findPageByParticipantBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    void givenPastCursor_whenFindPageByParticipant_thenQueriesPastSessionsBeforeCursor() {
+        Date cursorDate = new Date(1500L);
+        Slice<SessionSummary> page = new SliceImpl<>(Collections.emptyList());
+        when(sessionRepository.findPageByParticipantBefore(2L, cursorDate, 7L, PageRequest.of(0, SessionService.DEFAULT_PAGE_SIZE)))
+                .thenReturn(page);
+
+        Slice<SessionSummary> result = sessionService.findPageByParticipant(2L, true, new SessionCursor(cursorDate, 7L), null);
+
+        assertEquals(page, result);
+    }
+
+    @Test
+    void givenParticipationRows_whenFindParticipantIds_thenGroupsUserIdsBySession() {
+        List<Long> sessionIds = Arrays.asList(1L, 2L);
+        when(sessionRepository.findParticipants(sessionIds)).thenReturn(Arrays.asList(
+                new Object[]{1, 10}, new Object[]{1, 11}, new Object[]{2L, 12L}));
+
+        Map<Long, List<Long>> result = sessionService.findParticipantIds(sessionIds);
+
+        assertEquals(Arrays.asList(10L, 11L), result.get(1L));
+        assertEquals(Collections.singletonList(12L), result.get(2L));
+    }
+
+    @Test
+    void givenNoSessionIds_whenFindParticipantIds_thenSkipsQuery() {
+        Map<Long, List<Long>> result = sessionService.findParticipantIds(Collections.emptyList());
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    void givenExistingId_whenGetSummaryById_thenReturnsSummary() {
+        SessionSummary summary = new SessionSummary(1L, "Yoga", new Date(), 60, "Yoga session", 1L, null, 0, null, null);
+        when(sessionRepository.findSummaryById(1L)).thenReturn(Optional.of(summary));
+
+        SessionSummary result = sessionService.getSummaryById(1L);
+
+        assertEquals(summary, result);
+    }
+
     @Test
     void givenExistingId_whenGetById_thenReturnsSession() {
         Long sessionId = 1L;
@@ -69,84 +265,238 @@ public class SessionServiceTest {
         Long sessionId = 1L;
         Session session = Session.builder().id(sessionId).build();
         when(sessionRepository.save(session)).thenReturn(session);
+        bookThroughSchedule();
 
         Session result = sessionService.update(sessionId, session);
 
         assertEquals(session, result);
         verify(sessionRepository, times(1)).save(session);
+        verify(sessionRepository, times(1)).recountSeats(sessionId);
+    }
+
+    @Test
+    void givenExistingId_whenDelete_thenDeletesWaitlistAndSession() {
+        when(sessionChangeLog.next()).thenReturn(7L);
+
+        sessionService.delete(1L);
+
+        verify(waitlistRepository, times(1)).deleteBySession(1L);
+        verify(sessionRepository, times(1)).deleteById(1L);
+        verify(sessionDeletionRepository, times(1)).save(argThat((SessionDeletion deletion) ->
+                deletion.getSessionId().equals(1L) && deletion.getDeletedAt() != null && deletion.getChangeSeq() == 7L));
     }
 
     @Test
-    void givenValidSessionAndUser_whenParticipate_thenAddsUserToSession() {
+    void givenSessionWithUsers_whenCreate_thenCountsTakenSeats() {
+        Session session = Session.builder().users(Arrays.asList(new User(), new User())).build();
+        when(sessionRepository.save(session)).thenReturn(session);
+        bookThroughSchedule();
+
+        sessionService.create(session);
+
+        assertEquals(2, session.getSeatsTaken());
+    }
+
+    @Test
+    void givenWaitlistedUsers_whenUpdateFreesSeats_thenPromotesThem() {
+        Long sessionId = 1L;
+        Session session = Session.builder().capacity(2).users(new ArrayList<>()).build();
+        Session reloaded = Session.builder().id(sessionId).build();
+        when(sessionRepository.save(session)).thenReturn(session);
+        bookThroughSchedule();
+        when(sessionRepository.reserveSeat(sessionId)).thenReturn(1, 0);
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(sessionId))
+                .thenReturn(Optional.of(WaitlistEntry.builder().id(9L).sessionId(sessionId).userId(3L).build()));
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(reloaded));
+
+        Session result = sessionService.update(sessionId, session);
+
+        assertEquals(reloaded, result);
+        verify(waitlistRepository, times(1)).deleteEntry(9L);
+        verify(sessionRepository, times(1)).addParticipant(sessionId, 3L);
+    }
+
+    @Test
+    void givenFreeSeat_whenParticipate_thenInsertsParticipation() {
         Long sessionId = 1L;
         Long userId = 1L;
-        Session session = Session.builder().users(new ArrayList<>()).build();
-        User user = new User();
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(sessionRepository.reserveSeat(sessionId)).thenReturn(1);
+
+        ParticipationStatus status = sessionService.participate(sessionId, userId);
+
+        assertEquals(ParticipationStatus.PARTICIPATING, status);
+        verify(sessionRepository, times(1)).addParticipant(sessionId, userId);
+        verify(sessionRepository, never()).save(any());
+        // Leaves the waitlist if the user was on it
+        verify(waitlistRepository, times(1)).deleteEntry(sessionId, userId);
+        verify(waitlistRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(argThat((SessionChangedEvent event) -> event.getSessionIds().equals(Collections.singletonList(sessionId))));
+    }
+
+    @Test
+    void givenMoreUsersThanCapacity_whenUpdate_thenThrowsBadRequestWithoutSaving() {
+        Session session = Session.builder().capacity(1).users(Arrays.asList(new User(), new User())).build();
 
-        sessionService.participate(sessionId, userId);
+        assertThrows(BadRequestException.class, () -> sessionService.update(1L, session));
 
-        assertTrue(session.getUsers().contains(user));
-        verify(sessionRepository, times(1)).save(session);
+        verify(sessionRepository, never()).save(any());
     }
 
     @Test
-    void givenParticipatingUser_whenUnParticipate_thenRemovesUserFromSession() {
+    void givenMoreUsersThanCapacity_whenCreate_thenThrowsBadRequestWithoutSaving() {
+        Session session = Session.builder().capacity(1).users(Arrays.asList(new User(), new User())).build();
+
+        assertThrows(BadRequestException.class, () -> sessionService.create(session));
+
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void givenFullSession_whenParticipate_thenAddsUserToWaitlist() {
         Long sessionId = 1L;
         Long userId = 1L;
-        User userToRemove = new User();
-        userToRemove.setId(userId);
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(sessionRepository.reserveSeat(sessionId)).thenReturn(0);
+        when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(0L);
 
-        User anotherUser = new User();
-        anotherUser.setId(2L);
+        ParticipationStatus status = sessionService.participate(sessionId, userId);
 
-        Session session = Session.builder().users(new ArrayList<>()).build();
-        session.getUsers().add(userToRemove);
-        session.getUsers().add(anotherUser);
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        assertEquals(ParticipationStatus.WAITLISTED, status);
+        verify(waitlistRepository, times(1)).save(any(WaitlistEntry.class));
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
+    }
+
+    @Test
+    void givenFullSessionAndParticipatingUser_whenParticipate_thenThrowsBadRequestException() {
+        Long sessionId = 1L;
+        Long userId = 1L;
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(sessionRepository.reserveSeat(sessionId)).thenReturn(0);
+        when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(1L);
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(sessionId, userId));
+        verifyNoInteractions(waitlistRepository);
+        assertEquals(1.0, meterRegistry.counter("session.participate.conflicts").count());
+    }
+
+    @Test
+    void givenFullSessionAndWaitlistedUser_whenParticipate_thenThrowsBadRequestException() {
+        Long sessionId = 1L;
+        Long userId = 1L;
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(sessionRepository.reserveSeat(sessionId)).thenReturn(0);
+        when(sessionRepository.countParticipation(sessionId, userId)).thenReturn(0L);
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        assertThrows(BadRequestException.class, () -> sessionService.participate(sessionId, userId));
+    }
+
+    @Test
+    void givenParticipatingUserAndEmptyWaitlist_whenUnParticipate_thenReleasesSeat() {
+        Long sessionId = 1L;
+        Long userId = 1L;
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(1);
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(sessionId)).thenReturn(Optional.empty());
 
         sessionService.noLongerParticipate(sessionId, userId);
 
-        assertFalse(session.getUsers().contains(userToRemove));
-        assertTrue(session.getUsers().contains(anotherUser));
-        verify(sessionRepository, times(1)).save(session);
+        verify(sessionRepository, times(1)).removeParticipant(sessionId, userId);
+        verify(sessionRepository, times(1)).releaseSeat(sessionId);
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    void givenParticipatingUserAndWaitlist_whenUnParticipate_thenPromotesOldestEntry() {
+        Long sessionId = 1L;
+        Long userId = 1L;
+        WaitlistEntry entry = WaitlistEntry.builder().id(5L).sessionId(sessionId).userId(2L).build();
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(1);
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(sessionId)).thenReturn(Optional.of(entry));
+        when(sessionRepository.countParticipation(sessionId, 2L)).thenReturn(0L);
+
+        sessionService.noLongerParticipate(sessionId, userId);
+
+        verify(waitlistRepository, times(1)).deleteEntry(5L);
+        verify(sessionRepository, times(1)).addParticipant(sessionId, 2L);
+        verify(sessionRepository, times(1)).touch(sessionId);
+        verify(sessionRepository, never()).releaseSeat(anyLong());
+    }
+
+    @Test
+    void givenWaitlistedUser_whenUnParticipate_thenLeavesWaitlist() {
+        Long sessionId = 1L;
+        Long userId = 1L;
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(0);
+        when(waitlistRepository.deleteEntry(sessionId, userId)).thenReturn(1);
+
+        sessionService.noLongerParticipate(sessionId, userId);
+
+        verify(sessionRepository, never()).releaseSeat(anyLong());
+    }
+
+    @Test
+    void givenNonParticipatingUser_whenUnParticipate_thenThrowsBadRequestException() {
+        Long sessionId = 1L;
+        Long userId = 1L;
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(sessionRepository.removeParticipant(sessionId, userId)).thenReturn(0);
+        when(waitlistRepository.deleteEntry(sessionId, userId)).thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(sessionId, userId));
+    }
+
+    @Test
+    void givenInvalidSessionId_whenUnParticipate_thenThrowsNotFoundException() {
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(1L, 1L));
+        verify(sessionRepository, never()).removeParticipant(anyLong(), anyLong());
     }
 
     @Test
     void givenInvalidSessionId_whenParticipate_thenThrowsNotFoundException() {
         Long sessionId = 1L;
         Long userId = 1L;
-        User user = new User();
-        user.setId(userId);
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(sessionId, userId));
+        verify(sessionRepository, never()).reserveSeat(anyLong());
     }
 
     @Test
     void givenNonExistentUserId_whenParticipate_thenThrowsNotFoundException() {
         Long sessionId = 1L;
         Long userId = 1L;
-        Session session = Session.builder().users(new ArrayList<>()).build();
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(sessionId, userId));
+        verify(sessionRepository, never()).reserveSeat(anyLong());
     }
 
     @Test
     void givenUserAlreadyParticipating_whenParticipate_thenThrowsBadRequestException() {
         Long sessionId = 1L;
         Long userId = 1L;
-        User user = new User();
-        user.setId(userId);
-        Session session = Session.builder().users(Collections.singletonList(user)).build();
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(sessionRepository.lockById(sessionId)).thenReturn(Optional.of(sessionId));
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(sessionRepository.reserveSeat(sessionId)).thenReturn(1);
+        when(sessionRepository.addParticipant(sessionId, userId)).thenThrow(new DataIntegrityViolationException("duplicate"));
 
         assertThrows(BadRequestException.class, () -> sessionService.participate(sessionId, userId));
+        assertEquals(1.0, meterRegistry.counter("session.participate.conflicts").count());
     }
 
+    private void bookThroughSchedule() {
+        when(teacherSchedule.book(any(Session.class), any())).thenAnswer(invocation ->
+                invocation.<Supplier<Session>>getArgument(1).get());
+    }
 }
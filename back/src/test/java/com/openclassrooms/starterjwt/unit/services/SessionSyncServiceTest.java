@@ -0,0 +1,164 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.openclassrooms.starterjwt.exception.GoneException;
+import com.openclassrooms.starterjwt.repository.SessionChangeSequenceRepository;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionChange;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.SessionChangeLog;
+import com.openclassrooms.starterjwt.services.SessionSyncService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionSyncServiceTest {
+
+    private static final long RETENTION_MS = 86_400_000;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private SessionDeletionRepository sessionDeletionRepository;
+
+    @Mock
+    private SessionChangeSequenceRepository changeSequenceRepository;
+
+    @Mock
+    private SessionChangeLog sessionChangeLog;
+
+    private SessionSyncService sessionSyncService;
+
+    @BeforeEach
+    void setUp() {
+        sessionSyncService = new SessionSyncService(sessionRepository, sessionDeletionRepository, changeSequenceRepository,
+                sessionChangeLog, RETENTION_MS);
+    }
+
+    @Test
+    void givenNoSince_whenFindChanges_thenReturnsOnlyTheCurrentChangeNumber() {
+        when(sessionChangeLog.last()).thenReturn(42L);
+
+        SessionSyncService.Changes changes = sessionSyncService.findChanges(null, null);
+
+        assertTrue(changes.getUpdated().isEmpty());
+        assertTrue(changes.getDeleted().isEmpty());
+        assertEquals(42L, changes.getUntil());
+        assertFalse(changes.isHasMore());
+        verifyNoInteractions(sessionRepository, sessionDeletionRepository);
+    }
+
+    @Test
+    void givenSince_whenFindChanges_thenReturnsUpdatesAndTombstonesInChangeOrder() {
+        when(sessionChangeLog.last()).thenReturn(20L);
+        when(sessionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(new SessionChange(1L, 11L), new SessionChange(3L, 13L)));
+        when(sessionDeletionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new SessionChange(2L, 12L)));
+        when(sessionRepository.findSummariesByIds(Arrays.asList(1L, 3L)))
+                .thenReturn(Arrays.asList(summary(3L), summary(1L)));
+
+        SessionSyncService.Changes changes = sessionSyncService.findChanges(10L, null);
+
+        assertEquals(Arrays.asList(1L, 3L), Arrays.asList(changes.getUpdated().get(0).getId(), changes.getUpdated().get(1).getId()));
+        assertEquals(Collections.singletonList(2L), changes.getDeleted());
+        assertEquals(20L, changes.getUntil());
+        assertFalse(changes.isHasMore());
+    }
+
+    @Test
+    void givenMoreChangesThanLimit_whenFindChanges_thenStopsAtLimitAndReportsMore() {
+        when(sessionChangeLog.last()).thenReturn(20L);
+        when(sessionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(new SessionChange(1L, 11L), new SessionChange(3L, 13L)));
+        when(sessionDeletionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new SessionChange(2L, 12L)));
+        when(sessionRepository.findSummariesByIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(summary(1L)));
+
+        SessionSyncService.Changes changes = sessionSyncService.findChanges(10L, 2);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(sessionRepository).findChangesAfter(eq(10L), eq(20L), pageable.capture());
+        assertEquals(3, pageable.getValue().getPageSize());
+        assertEquals(1, changes.getUpdated().size());
+        assertEquals(Collections.singletonList(2L), changes.getDeleted());
+        assertEquals(12L, changes.getUntil());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void givenOneTransactionChangingMoreThanLimit_whenFindChanges_thenReturnsAllOfItsChanges() {
+        when(sessionChangeLog.last()).thenReturn(20L);
+        when(sessionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(new SessionChange(1L, 11L), new SessionChange(3L, 11L), new SessionChange(4L, 12L)));
+        when(sessionDeletionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(sessionRepository.findChangesAt(11L))
+                .thenReturn(Arrays.asList(new SessionChange(1L, 11L), new SessionChange(3L, 11L), new SessionChange(5L, 11L)));
+        when(sessionDeletionRepository.findChangesAt(11L)).thenReturn(Collections.singletonList(new SessionChange(2L, 11L)));
+        when(sessionRepository.findSummariesByIds(Arrays.asList(1L, 3L, 5L)))
+                .thenReturn(Arrays.asList(summary(1L), summary(3L), summary(5L)));
+
+        SessionSyncService.Changes changes = sessionSyncService.findChanges(10L, 1);
+
+        assertEquals(3, changes.getUpdated().size());
+        assertEquals(Collections.singletonList(2L), changes.getDeleted());
+        assertEquals(11L, changes.getUntil());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void givenNothingChanged_whenFindChanges_thenReturnsTheLastNumber() {
+        when(sessionChangeLog.last()).thenReturn(20L);
+        when(sessionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(sessionDeletionRepository.findChangesAfter(eq(10L), eq(20L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        SessionSyncService.Changes changes = sessionSyncService.findChanges(10L, null);
+
+        assertEquals(20L, changes.getUntil());
+        assertFalse(changes.isHasMore());
+        verify(sessionRepository, never()).findSummariesByIds(anyCollection());
+    }
+
+    @Test
+    void givenSinceBeforePurgedTombstones_whenFindChanges_thenThrowsGone() {
+        when(changeSequenceRepository.findPurgedSeq()).thenReturn(20L);
+
+        assertThrows(GoneException.class, () -> sessionSyncService.findChanges(10L, null));
+        verifyNoInteractions(sessionRepository, sessionDeletionRepository);
+    }
+
+    @Test
+    void whenPurgeExpired_thenDeletesTombstonesOlderThanRetentionAndRecordsTheirLastNumber() {
+        when(sessionDeletionRepository.findLastChangeSeqBefore(any(LocalDateTime.class))).thenReturn(7L);
+
+        sessionSyncService.purgeExpired();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(sessionDeletionRepository).deleteOlderThan(cutoff.capture());
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusHours(23)));
+        verify(changeSequenceRepository).markPurged(7L);
+    }
+
+    private static SessionSummary summary(Long id) {
+        return new SessionSummary(id, "Yoga", new Date(), 60, "Yoga session", 1L, null, 0, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,210 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.openclassrooms.starterjwt.events.SessionChangedEvent;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionTemplate;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionTemplateRepository;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
+import com.openclassrooms.starterjwt.services.SessionTemplateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionTemplateServiceTest {
+    private static final long DAY_MS = 86_400_000L;
+
+    @Mock
+    private SessionTemplateRepository templateRepository;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private TeacherSchedule teacherSchedule;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SessionTemplateService templateService;
+
+    @BeforeEach
+    void setUp() {
+        templateService = new SessionTemplateService(templateRepository, sessionRepository, teacherSchedule, transactionTemplate, eventPublisher,
+                21 * DAY_MS, 366 * DAY_MS);
+    }
+
+    @Test
+    void givenWeeklyTemplate_whenCreate_thenMaterializesOccurrencesUpToTheHorizon() {
+        SessionTemplate template = template("FREQ=WEEKLY", null);
+        when(templateRepository.save(template)).thenAnswer(invocation -> template.setId(7L));
+        bookSaves();
+
+        templateService.create(template);
+
+        List<Session> sessions = saved();
+        assertEquals(3, sessions.size());
+        assertTrue(sessions.stream().allMatch(session -> session.getTemplateId() == 7L && "Flow".equals(session.getName())));
+        assertNotNull(template.getMaterializedUntil());
+        verify(eventPublisher, times(1)).publishEvent(argThat((SessionChangedEvent event) -> event.getSessionIds().size() == 3));
+    }
+
+    @Test
+    void givenStoredOccurrence_whenCreate_thenSkipsIt() {
+        SessionTemplate template = template("FREQ=WEEKLY", null);
+        Date first = Date.from(template.getStartsAt().toInstant(ZoneOffset.UTC));
+        when(templateRepository.save(template)).thenAnswer(invocation -> template.setId(7L));
+        when(sessionRepository.findTemplateDates(eq(7L), any(), any())).thenReturn(Collections.singletonList(first));
+        bookSaves();
+
+        templateService.create(template);
+
+        List<Session> sessions = saved();
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.stream().noneMatch(session -> session.getDate().equals(first)));
+    }
+
+    @Test
+    void givenWatermarkInThePast_whenMaterializeDue_thenStartsFromNow() {
+        Date now = new Date();
+        SessionTemplate template = template("FREQ=DAILY", new Date(now.getTime() - 10 * DAY_MS))
+                .setStartsAt(LocalDateTime.now(ZoneOffset.UTC).minusDays(30).truncatedTo(ChronoUnit.MINUTES))
+                .setId(7L);
+        when(templateRepository.findIdsMaterializedBefore(any())).thenReturn(Collections.singletonList(7L));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(templateRepository.findById(7L)).thenReturn(Optional.of(template));
+        bookSaves();
+
+        templateService.materializeDue();
+
+        List<Session> sessions = saved();
+        assertTrue(sessions.size() <= 21);
+        assertTrue(sessions.stream().noneMatch(session -> session.getDate().before(now)));
+    }
+
+    @Test
+    void givenTeacherBookedOnAnOccurrence_whenCreate_thenSkipsOnlyThatOccurrence() {
+        SessionTemplate template = template("FREQ=WEEKLY", null);
+        Date first = Date.from(template.getStartsAt().toInstant(ZoneOffset.UTC));
+        when(templateRepository.save(template)).thenAnswer(invocation -> template.setId(7L));
+        when(teacherSchedule.book(any(), any())).thenAnswer(invocation -> {
+            if (invocation.<Session>getArgument(0).getDate().equals(first)) {
+                throw new ConflictException("Teacher is already booked for session 3");
+            }
+            return invocation.<Supplier<Session>>getArgument(1).get();
+        });
+        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        templateService.create(template);
+
+        List<Session> sessions = saved();
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.stream().noneMatch(session -> session.getDate().equals(first)));
+        assertNotNull(template.getMaterializedUntil());
+        verify(eventPublisher, times(1)).publishEvent(argThat((SessionChangedEvent event) -> event.getSessionIds().size() == 2));
+    }
+
+    @Test
+    void givenInvalidTemplate_whenCreate_thenThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> templateService.create(template("FREQ=YEARLY", null)));
+        assertThrows(BadRequestException.class, () -> templateService.create(template("FREQ=DAILY", null).setTimeZone("Mars/Olympus")));
+        assertThrows(BadRequestException.class, () -> templateService.create(template("FREQ=DAILY", null).setTeacher(null)));
+        verifyNoInteractions(templateRepository, sessionRepository);
+    }
+
+    @Test
+    void givenMaterializedTemplate_whenFindOccurrences_thenReturnsOnlyOccurrencesPastTheWatermark() {
+        Date from = new Date();
+        Date watermark = new Date(from.getTime() + 10 * DAY_MS);
+        when(templateRepository.findAll()).thenReturn(Collections.singletonList(template("FREQ=DAILY", watermark).setId(7L)));
+
+        List<Session> occurrences = templateService.findOccurrences(from, new Date(from.getTime() + 20 * DAY_MS));
+
+        assertEquals(10, occurrences.size());
+        assertTrue(occurrences.stream().allMatch(session -> session.getId() == null && !session.getDate().before(watermark)));
+    }
+
+    @Test
+    void givenRangeLongerThanMax_whenFindOccurrences_thenThrowsBadRequest() {
+        Date from = new Date();
+
+        assertThrows(BadRequestException.class, () -> templateService.findOccurrences(from, new Date(from.getTime() + 400 * DAY_MS)));
+        assertThrows(BadRequestException.class, () -> templateService.findOccurrences(from, from));
+    }
+
+    @Test
+    void givenDueTemplates_whenMaterializeDue_thenOneFailureDoesNotStopTheOthers() {
+        when(templateRepository.findIdsMaterializedBefore(any())).thenReturn(Arrays.asList(1L, 2L));
+        doThrow(new IllegalStateException("boom"))
+                .doAnswer(invocation -> {
+                    invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate).executeWithoutResult(any());
+        when(templateRepository.findById(2L)).thenReturn(Optional.empty());
+
+        templateService.materializeDue();
+
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(templateRepository).findById(2L);
+    }
+
+    private void bookSaves() {
+        when(teacherSchedule.book(any(), any())).thenAnswer(invocation -> invocation.<Supplier<Session>>getArgument(1).get());
+        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private List<Session> saved() {
+        ArgumentCaptor<Session> sessions = ArgumentCaptor.forClass(Session.class);
+        verify(sessionRepository, atLeast(0)).save(sessions.capture());
+        return sessions.getAllValues();
+    }
+
+    private static SessionTemplate template(String recurrence, Date materializedUntil) {
+        // Starts tomorrow, so a 21-day horizon holds 3 weekly occurrences
+        return SessionTemplate.builder()
+                .name("Flow")
+                .description("Flow session")
+                .teacher(Teacher.builder().id(1L).build())
+                .recurrence(recurrence)
+                .startsAt(LocalDateTime.now(ZoneOffset.UTC).plusDays(1).truncatedTo(ChronoUnit.MINUTES))
+                .timeZone("UTC")
+                .materializedUntil(materializedUntil)
+                .build();
+    }
+}
@@ -1,7 +1,11 @@
 package com.openclassrooms.starterjwt.unit.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.payload.response.TeacherAvailabilityResponse;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.schedule.IntervalTree;
+import com.openclassrooms.starterjwt.schedule.TeacherSchedule;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,11 +14,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +33,9 @@ public class TeacherServiceTest {
     @Mock
     private TeacherRepository teacherRepository;
 
+    @Mock
+    private TeacherSchedule teacherSchedule;
+
     @Test
     void givenTeachersExist_whenFindAll_thenReturnsListOfTeachers() {
         List<Teacher> teachers = Arrays.asList(new Teacher(), new Teacher());
@@ -50,5 +59,27 @@ public class TeacherServiceTest {
         verify(teacherRepository).findById(teacherId);
     }
 
+    @Test
+    void givenBookings_whenFindAvailability_thenReturnsGapsWithinRange() {
+        Date from = new Date(0L);
+        Date to = new Date(100L);
+        when(teacherSchedule.findBookings(1L, from, to)).thenReturn(Arrays.asList(
+                new IntervalTree.Interval(-10L, 20L, 1L),
+                new IntervalTree.Interval(10L, 30L, 2L),
+                new IntervalTree.Interval(50L, 60L, 3L)));
+
+        TeacherAvailabilityResponse result = teacherService.findAvailability(1L, from, to);
 
+        assertEquals(3, result.getBusy().size());
+        assertEquals(2, result.getFree().size());
+        assertEquals(new Date(30L), result.getFree().get(0).getStart());
+        assertEquals(new Date(50L), result.getFree().get(0).getEnd());
+        assertEquals(new Date(60L), result.getFree().get(1).getStart());
+        assertEquals(to, result.getFree().get(1).getEnd());
+    }
+
+    @Test
+    void givenEmptyRange_whenFindAvailability_thenThrowsBadRequest() {
+        assertThrows(BadRequestException.class, () -> teacherService.findAvailability(1L, new Date(10L), new Date(10L)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.openclassrooms.starterjwt.models.TokenRevocation;
+import com.openclassrooms.starterjwt.repository.TokenRevocationRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationList;
+import com.openclassrooms.starterjwt.services.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationServiceTest {
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private TokenRevocationList tokenRevocationList;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationList = new TokenRevocationList(100, 60_000);
+        tokenRevocationService = new TokenRevocationService(tokenRevocationRepository, tokenRevocationList, 60_000, 0);
+    }
+
+    @Test
+    void givenUser_whenRevokeUser_thenStoresItAndRevokesLocally() {
+        Date issuedBefore = new Date(System.currentTimeMillis() - 1_000);
+
+        tokenRevocationService.revokeUser("user@example.com");
+
+        ArgumentCaptor<TokenRevocation> saved = ArgumentCaptor.forClass(TokenRevocation.class);
+        verify(tokenRevocationRepository).save(saved.capture());
+        assertEquals("user@example.com", saved.getValue().getUsername());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(saved.getValue().getRevokedAt()));
+        assertTrue(tokenRevocationList.isRevoked("user@example.com", issuedBefore));
+    }
+
+    @Test
+    void givenTokenWithoutId_whenRevokeToken_thenIgnoresIt() {
+        tokenRevocationService.revokeToken(null, new Date());
+
+        verifyNoInteractions(tokenRevocationRepository);
+    }
+
+    @Test
+    void givenRevocationsOfOtherInstances_whenSync_thenAppliesThem() {
+        LocalDateTime now = LocalDateTime.now();
+        when(tokenRevocationRepository.findLiveAfter(anyLong(), any(LocalDateTime.class))).thenReturn(Arrays.asList(
+                TokenRevocation.builder().id(1L).tokenId("jti-1").revokedAt(now).expiresAt(now.plusMinutes(1)).build(),
+                TokenRevocation.builder().id(2L).username("user@example.com").revokedAt(now).expiresAt(now.plusMinutes(1)).build()));
+
+        tokenRevocationService.sync();
+
+        assertTrue(tokenRevocationList.isTokenRevoked("jti-1"));
+        assertTrue(tokenRevocationList.isRevoked("user@example.com", new Date(System.currentTimeMillis() - 60_000)));
+        assertFalse(tokenRevocationList.isRevoked("user@example.com", new Date(System.currentTimeMillis() + 60_000)));
+    }
+
+    @Test
+    void givenRowsAlreadyRead_whenSyncAgain_thenReadsOnlyPastThem() {
+        LocalDateTime now = LocalDateTime.now();
+        when(tokenRevocationRepository.findLiveAfter(eq(0L), any(LocalDateTime.class))).thenReturn(Arrays.asList(
+                TokenRevocation.builder().id(3L).tokenId("jti-3").revokedAt(now).expiresAt(now.plusMinutes(1)).build(),
+                TokenRevocation.builder().id(7L).tokenId("jti-7").revokedAt(now).expiresAt(now.plusMinutes(1)).build()));
+
+        tokenRevocationService.sync();
+        tokenRevocationService.sync();
+
+        verify(tokenRevocationRepository).findLiveAfter(eq(0L), any(LocalDateTime.class));
+        verify(tokenRevocationRepository).findLiveAfter(eq(7L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void givenRowsReadWithinTheSettleWindow_whenSyncAgain_thenReadsThemAgain() {
+        TokenRevocationService settling = new TokenRevocationService(tokenRevocationRepository, tokenRevocationList, 60_000, 60_000);
+        LocalDateTime now = LocalDateTime.now();
+        when(tokenRevocationRepository.findLiveAfter(eq(0L), any(LocalDateTime.class))).thenReturn(Arrays.asList(
+                TokenRevocation.builder().id(7L).tokenId("jti-7").revokedAt(now).expiresAt(now.plusMinutes(1)).build()));
+
+        settling.sync();
+        settling.sync();
+
+        verify(tokenRevocationRepository, times(2)).findLiveAfter(eq(0L), any(LocalDateTime.class));
+        verify(tokenRevocationRepository, never()).findLiveAfter(eq(7L), any(LocalDateTime.class));
+    }
+}
@@ -1,18 +1,28 @@
 package com.openclassrooms.starterjwt.unit.services;
 
+import com.openclassrooms.starterjwt.events.UserDeletedEvent;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+import com.openclassrooms.starterjwt.services.TokenRevocationService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,6 +35,15 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
 
     @Test
     void givenExistingId_whenFindById_thenReturnsUser() {
@@ -39,11 +58,37 @@ public class UserServiceTest {
     }
 
     @Test
-    void givenExistingId_whenDelete_thenDelete() {
+    void givenExistingId_whenDelete_thenDeleteAndEvictPrincipal() {
         Long userId = 1L;
+        User user = new User();
+        user.setEmail("user@example.com");
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
         userService.delete(userId);
 
+        verify(refreshTokenService).revokeAll(userId);
         verify(userRepository).deleteById(userId);
+        verify(eventPublisher).publishEvent(argThat((UserDeletedEvent event) -> event.getEmail().equals("user@example.com")));
+        verify(tokenRevocationService).revokeUser("user@example.com");
+    }
+
+    @Test
+    void givenIds_whenFindAllById_thenQueriesOnce() {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        List<User> users = Arrays.asList(new User(), new User());
+        when(userRepository.findAllById(ids)).thenReturn(users);
+
+        List<User> result = userService.findAllById(ids);
+
+        assertEquals(users, result);
+        verify(userRepository).findAllById(ids);
+    }
+
+    @Test
+    void givenNoIds_whenFindAllById_thenSkipsQuery() {
+        List<User> result = userService.findAllById(Collections.emptyList());
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userRepository);
     }
-}
\ No newline at end of file
+}
@@ -12,9 +12,11 @@ import { Location } from '@angular/common';
 import { expect } from '@jest/globals';
 import {Component, CUSTOM_ELEMENTS_SCHEMA} from '@angular/core';
 import { NoopAnimationsModule } from '@angular/platform-browser/animations';
+import { NEVER } from 'rxjs';
 
 import { DetailComponent } from './detail.component';
 import { SessionApiService } from '../../services/session-api.service';
+import { SessionEventsService } from '../../services/session-events.service';
 import { TeacherService } from '../../../../services/teacher.service';
 import { SessionService } from '../../../../services/session.service';
 import { Session } from '../../interfaces/session.interface';
@@ -104,7 +106,8 @@ describe('DetailComponent Integration Tests - Participate/Unparticipate', () =>
         SessionApiService,
         TeacherService,
         { provide: SessionService, useValue: mockSessionService },
-        { provide: ActivatedRoute, useValue: mockActivatedRoute }
+        { provide: ActivatedRoute, useValue: mockActivatedRoute },
+        { provide: SessionEventsService, useValue: { session: () => NEVER } }
       ],
       imports: [
         HttpClientTestingModule,
@@ -5,12 +5,14 @@ import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { ActivatedRoute, Router } from '@angular/router';
 import { RouterTestingModule } from '@angular/router/testing';
 import { expect } from '@jest/globals';
-import { of } from 'rxjs';
+import { Subject, of } from 'rxjs';
 import { SessionService } from '../../../../services/session.service';
 import { TeacherService } from '../../../../services/teacher.service';
 import { Teacher } from '../../../../interfaces/teacher.interface';
 import { Session } from '../../interfaces/session.interface';
+import { RESYNC, SessionEvent } from '../../interfaces/sessionUpdate.interface';
 import { SessionApiService } from '../../services/session-api.service';
+import { SessionEventsService } from '../../services/session-events.service';
 import { DetailComponent } from './detail.component';
 import { MatIconModule } from '@angular/material/icon';
 import { MatCardModule } from '@angular/material/card';
@@ -72,7 +74,14 @@ describe('DetailComponent', () => {
     unParticipate: jest.fn().mockReturnValue(of(null)),
   };
 
+  let sessionEvents: Subject<SessionEvent>;
+
+  const mockSessionEventsService = {
+    session: jest.fn(() => sessionEvents),
+  };
+
   beforeEach(async () => {
+    sessionEvents = new Subject<SessionEvent>();
     await TestBed.configureTestingModule({
       imports: [
         RouterTestingModule,
@@ -86,6 +95,7 @@ describe('DetailComponent', () => {
       providers: [
         { provide: SessionService, useValue: mockSessionService },
         { provide: SessionApiService, useValue: mockSessionApiService },
+        { provide: SessionEventsService, useValue: mockSessionEventsService },
         { provide: TeacherService, useValue: mockTeacherService },
         { provide: MatSnackBar, useValue: mockMatSnackBar },
         { provide: ActivatedRoute, useValue: mockActivatedRoute },
@@ -126,4 +136,39 @@ describe('DetailComponent', () => {
       expect(deleteButton).toBeNull();
     });
   });
+
+  describe('Session events test suites', () => {
+    beforeEach(() => {
+      mockTeacherService.detail.mockReturnValue(of(undefined));
+      fixture.detectChanges();
+    });
+
+    it('should update the attendees when the session changes', () => {
+      sessionEvents.next({ sessionId: 1, deleted: false, capacity: 10, seatsTaken: 3, users: [2, 3, 4] });
+
+      expect(component.session?.users).toEqual([2, 3, 4]);
+      expect(component.session?.seatsTaken).toBe(3);
+      expect(component.isParticipate).toBe(true);
+    });
+
+    it('should reload the session on resync', () => {
+      sessionEvents.next(RESYNC);
+
+      expect(sessionApiService.detail).toHaveBeenCalledWith('1');
+    });
+
+    it('should leave the page when the session is deleted', () => {
+      sessionEvents.next({ sessionId: 1, deleted: true });
+
+      expect(matSnackBar.open).toHaveBeenCalledWith('Session deleted !', 'Close', { duration: 3000 });
+      expect(router.navigate).toHaveBeenCalledWith(['sessions']);
+      expect(sessionEvents.observed).toBe(false);
+    });
+
+    it('should close the stream when destroyed', () => {
+      fixture.destroy();
+
+      expect(sessionEvents.observed).toBe(false);
+    });
+  });
 });
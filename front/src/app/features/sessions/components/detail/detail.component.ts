@@ -1,19 +1,22 @@
-import { Component, OnInit, NgZone } from '@angular/core';
+import { Component, OnDestroy, OnInit, NgZone } from '@angular/core';
 import { FormBuilder } from '@angular/forms';
 import { MatSnackBar } from '@angular/material/snack-bar';
 import { ActivatedRoute, Router } from '@angular/router';
+import { Subscription } from 'rxjs';
 import { Teacher } from '../../../../interfaces/teacher.interface';
 import { SessionService } from '../../../../services/session.service';
 import { TeacherService } from '../../../../services/teacher.service';
 import { Session } from '../../interfaces/session.interface';
+import { RESYNC, SessionEvent } from '../../interfaces/sessionUpdate.interface';
 import { SessionApiService } from '../../services/session-api.service';
+import { SessionEventsService } from '../../services/session-events.service';
 
 @Component({
   selector: 'app-detail',
   templateUrl: './detail.component.html',
   styleUrls: ['./detail.component.scss']
 })
-export class DetailComponent implements OnInit {
+export class DetailComponent implements OnInit, OnDestroy {
   public session: Session | undefined;
   public teacher: Teacher | undefined;
 
@@ -23,6 +26,8 @@ export class DetailComponent implements OnInit {
   public sessionId: string;
   public userId: string;
 
+  private events?: Subscription;
+
   constructor(
     private route: ActivatedRoute,
     private fb: FormBuilder,
@@ -31,7 +36,8 @@ export class DetailComponent implements OnInit {
     private teacherService: TeacherService,
     private matSnackBar: MatSnackBar,
     private router: Router,
-    private ngZone: NgZone) {
+    private ngZone: NgZone,
+    private sessionEventsService: SessionEventsService) {
     this.sessionId = this.route.snapshot.paramMap.get('id')!;
     this.isAdmin = this.sessionService.sessionInformation!.admin;
     this.userId = this.sessionService.sessionInformation!.id.toString();
@@ -39,6 +45,13 @@ export class DetailComponent implements OnInit {
 
   public ngOnInit(): void {
     this.fetchSession();
+    this.events = this.sessionEventsService
+      .session(this.sessionId)
+      .subscribe((event: SessionEvent) => this.onEvent(event));
+  }
+
+  public ngOnDestroy(): void {
+    this.events?.unsubscribe();
   }
 
   public back() {
@@ -49,6 +62,7 @@ export class DetailComponent implements OnInit {
     this.sessionApiService
       .delete(this.sessionId)
       .subscribe((_: any) => {
+          this.events?.unsubscribe();
           this.matSnackBar.open('Session deleted !', 'Close', { duration: 3000 });
           this.ngZone.run(() => {
             this.router.navigate(['sessions']);
@@ -65,6 +79,26 @@ export class DetailComponent implements OnInit {
     this.sessionApiService.unParticipate(this.sessionId, this.userId).subscribe(_ => this.fetchSession());
   }
 
+  private onEvent(event: SessionEvent): void {
+    if (event === RESYNC) {
+      this.fetchSession();
+      return;
+    }
+
+    if (event.deleted) {
+      this.events?.unsubscribe();
+      this.matSnackBar.open('Session deleted !', 'Close', { duration: 3000 });
+      this.router.navigate(['sessions']);
+      return;
+    }
+
+    if (this.session) {
+      const users = event.users ?? this.session.users;
+      this.session = { ...this.session, capacity: event.capacity, seatsTaken: event.seatsTaken, users };
+      this.isParticipate = users.some(u => u === this.sessionService.sessionInformation!.id);
+    }
+  }
+
   private fetchSession(): void {
     this.sessionApiService
       .detail(this.sessionId)
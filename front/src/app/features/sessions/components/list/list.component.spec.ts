@@ -2,14 +2,21 @@ import { HttpClientModule } from '@angular/common/http';
 import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { MatCardModule } from '@angular/material/card';
 import { MatIconModule } from '@angular/material/icon';
+import { RouterTestingModule } from '@angular/router/testing';
 import { expect } from '@jest/globals';
+import { Subject, of } from 'rxjs';
 import { SessionService } from 'src/app/services/session.service';
+import { Session } from '../../interfaces/session.interface';
+import { RESYNC, SessionEvent } from '../../interfaces/sessionUpdate.interface';
+import { SessionApiService } from '../../services/session-api.service';
+import { SessionEventsService } from '../../services/session-events.service';
 
 import { ListComponent } from './list.component';
 
 describe('ListComponent', () => {
   let component: ListComponent;
   let fixture: ComponentFixture<ListComponent>;
+  let sessionEvents: Subject<SessionEvent>;
 
   const mockSessionService = {
     sessionInformation: {
@@ -17,11 +24,27 @@ describe('ListComponent', () => {
     }
   }
 
+  const mockSessions: Session[] = [
+    { id: 1, name: 'Yoga', description: 'Yoga session', date: new Date('2025-02-01'), teacher_id: 1, capacity: 10, seatsTaken: 1, users: [2] },
+    { id: 2, name: 'Pilates', description: 'Pilates session', date: new Date('2025-02-02'), teacher_id: 2, users: [] }
+  ];
+
+  const mockSessionApiService = {
+    page: jest.fn()
+  };
+
   beforeEach(async () => {
+    sessionEvents = new Subject<SessionEvent>();
+    mockSessionApiService.page.mockReset().mockReturnValue(of({ sessions: mockSessions, nextCursor: null }));
+
     await TestBed.configureTestingModule({
       declarations: [ListComponent],
-      imports: [HttpClientModule, MatCardModule, MatIconModule],
-      providers: [{ provide: SessionService, useValue: mockSessionService }]
+      imports: [HttpClientModule, MatCardModule, MatIconModule, RouterTestingModule],
+      providers: [
+        { provide: SessionService, useValue: mockSessionService },
+        { provide: SessionApiService, useValue: mockSessionApiService },
+        { provide: SessionEventsService, useValue: { catalog: () => sessionEvents } }
+      ]
     })
       .compileComponents();
 
@@ -33,4 +56,72 @@ describe('ListComponent', () => {
   it('should create', () => {
     expect(component).toBeTruthy();
   });
+
+  it('should patch the seats of a session from its update', () => {
+    sessionEvents.next({ sessionId: 1, deleted: false, capacity: 10, seatsTaken: 2, users: [2, 3] });
+    fixture.detectChanges();
+
+    const seats = fixture.nativeElement.querySelector('[data-testid="seats-1"]');
+    expect(seats.textContent).toContain('2 / 10 seats taken');
+    expect(mockSessionApiService.page).toHaveBeenCalledTimes(1);
+  });
+
+  it('should remove a deleted session', () => {
+    sessionEvents.next({ sessionId: 2, deleted: true });
+    fixture.detectChanges();
+
+    expect(fixture.nativeElement.textContent).not.toContain('Pilates');
+    expect(mockSessionApiService.page).toHaveBeenCalledTimes(1);
+  });
+
+  it('should reload the list on resync or an unknown session', () => {
+    sessionEvents.next(RESYNC);
+    sessionEvents.next({ sessionId: 3, deleted: false, capacity: 10, seatsTaken: 0, users: [] });
+
+    expect(mockSessionApiService.page).toHaveBeenCalledTimes(3);
+  });
+
+  it('should not offer more sessions after the last page', () => {
+    expect(fixture.nativeElement.querySelector('[data-testid="load-more-button"]')).toBeNull();
+  });
+
+  describe('with more than one page', () => {
+    const nextSession: Session = {
+      id: 3, name: 'Stretching', description: 'Stretching session', date: new Date('2025-02-03'), teacher_id: 1, users: []
+    };
+
+    beforeEach(() => {
+      mockSessionApiService.page.mockReset().mockImplementation((cursor?: string | null) => cursor === 'page-2'
+        ? of({ sessions: [nextSession], nextCursor: null })
+        : of({ sessions: mockSessions, nextCursor: 'page-2' }));
+
+      fixture = TestBed.createComponent(ListComponent);
+      component = fixture.componentInstance;
+      fixture.detectChanges();
+    });
+
+    it('should load the next page from the cursor', () => {
+      expect(fixture.nativeElement.textContent).not.toContain('Stretching');
+
+      fixture.nativeElement.querySelector('[data-testid="load-more-button"]').click();
+      fixture.detectChanges();
+
+      expect(mockSessionApiService.page).toHaveBeenLastCalledWith('page-2');
+      expect(fixture.nativeElement.textContent).toContain('Yoga');
+      expect(fixture.nativeElement.textContent).toContain('Stretching');
+      expect(fixture.nativeElement.querySelector('[data-testid="load-more-button"]')).toBeNull();
+    });
+
+    it('should reload every page shown on resync', () => {
+      fixture.nativeElement.querySelector('[data-testid="load-more-button"]').click();
+      mockSessionApiService.page.mockClear();
+
+      sessionEvents.next(RESYNC);
+      fixture.detectChanges();
+
+      expect(mockSessionApiService.page).toHaveBeenCalledTimes(2);
+      expect(mockSessionApiService.page).toHaveBeenNthCalledWith(2, 'page-2');
+      expect(fixture.nativeElement.textContent).toContain('Stretching');
+    });
+  });
 });
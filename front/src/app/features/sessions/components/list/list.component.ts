@@ -1,9 +1,24 @@
 import { Component } from '@angular/core';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable, Subject, expand, map, merge, mergeScan, of, reduce, startWith } from 'rxjs';
 import { SessionInformation } from '../../../../interfaces/sessionInformation.interface';
 import { SessionService } from '../../../../services/session.service';
 import { Session } from '../../interfaces/session.interface';
+import { SessionPage } from '../../interfaces/sessionPage.interface';
+import { RESYNC, SessionEvent } from '../../interfaces/sessionUpdate.interface';
 import { SessionApiService } from '../../services/session-api.service';
+import { SessionEventsService } from '../../services/session-events.service';
+
+const LOAD_MORE = 'load-more';
+
+type ListAction = SessionEvent | typeof LOAD_MORE;
+
+export interface SessionList {
+  sessions: Session[];
+  nextCursor: string | null;
+  pages: number;
+}
+
+const EMPTY_LIST: SessionList = { sessions: [], nextCursor: null, pages: 0 };
 
 @Component({
   selector: 'app-list',
@@ -12,14 +27,74 @@ import { SessionApiService } from '../../services/session-api.service';
 })
 export class ListComponent {
 
-  public sessions$: Observable<Session[]> = this.sessionApiService.all();
+  private loadMore$ = new Subject<typeof LOAD_MORE>();
+
+  // First page loaded, then patched by the event stream and extended page by page; actions are applied
+  // one at a time, after any load
+  public list$: Observable<SessionList> = merge(this.sessionEventsService.catalog(), this.loadMore$).pipe(
+    startWith<ListAction>(RESYNC),
+    mergeScan((list: SessionList, action: ListAction) => this.apply(list, action), EMPTY_LIST, 1)
+  );
 
   constructor(
     private sessionService: SessionService,
-    private sessionApiService: SessionApiService
+    private sessionApiService: SessionApiService,
+    private sessionEventsService: SessionEventsService
   ) { }
 
   get user(): SessionInformation | undefined {
     return this.sessionService.sessionInformation;
   }
+
+  public loadMore(): void {
+    this.loadMore$.next(LOAD_MORE);
+  }
+
+  private apply(list: SessionList, action: ListAction): Observable<SessionList> {
+    if (action === LOAD_MORE) {
+      if (!list.nextCursor) {
+        return of(list);
+      }
+      return this.sessionApiService.page(list.nextCursor).pipe(map(page => this.append(list, page)));
+    }
+
+    // Reloads as many pages as were shown
+    if (action === RESYNC) {
+      return this.load(Math.max(list.pages, 1));
+    }
+
+    if (action.deleted) {
+      return of({ ...list, sessions: list.sessions.filter(session => session.id !== action.sessionId) });
+    }
+
+    // A session created since the load: the update does not carry what the card shows
+    if (!list.sessions.some(session => session.id === action.sessionId)) {
+      return this.load(Math.max(list.pages, 1));
+    }
+
+    return of({
+      ...list,
+      sessions: list.sessions.map(session => session.id !== action.sessionId ? session : {
+        ...session,
+        capacity: action.capacity,
+        seatsTaken: action.seatsTaken,
+        users: action.users ?? session.users
+      })
+    });
+  }
+
+  private load(pages: number): Observable<SessionList> {
+    return this.sessionApiService.page().pipe(
+      expand((page, index) => page.nextCursor && index + 1 < pages ? this.sessionApiService.page(page.nextCursor) : EMPTY),
+      reduce((list: SessionList, page: SessionPage) => this.append(list, page), EMPTY_LIST)
+    );
+  }
+
+  private append(list: SessionList, page: SessionPage): SessionList {
+    return {
+      sessions: [...list.sessions, ...page.sessions],
+      nextCursor: page.nextCursor,
+      pages: list.pages + 1
+    };
+  }
 }
@@ -4,6 +4,8 @@ export interface Session {
   description: string;
   date: Date;
   teacher_id: number;
+  capacity?: number;
+  seatsTaken?: number;
   users: number[];
   createdAt?: Date;
   updatedAt?: Date;
@@ -0,0 +1,7 @@
+import { Session } from './session.interface';
+
+export interface SessionPage {
+  sessions: Session[];
+  // Cursor of the following page, null on the last one
+  nextCursor: string | null;
+}
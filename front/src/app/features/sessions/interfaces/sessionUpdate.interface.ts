@@ -0,0 +1,12 @@
+export interface SessionUpdate {
+  sessionId: number;
+  deleted: boolean;
+  capacity?: number;
+  seatsTaken?: number;
+  users?: number[];
+}
+
+// The stream may have missed updates (buffer overflow or reconnection): reload instead of patching
+export const RESYNC = 'resync';
+
+export type SessionEvent = SessionUpdate | typeof RESYNC;
@@ -48,15 +48,28 @@ describe('SessionApiService', () => {
     expect(sessionApiService).toBeTruthy();
   });
 
-  it('should fetch all sessions', () => {
-    sessionApiService.all().subscribe(response => {
-      expect(response).toEqual(mockSessions);
-      expect(response.length).toBe(2);
+  it('should fetch the first page of sessions with the next cursor', () => {
+    sessionApiService.page().subscribe(response => {
+      expect(response.sessions).toEqual(mockSessions);
+      expect(response.nextCursor).toBe('next');
     });
 
-    const req = httpMock.expectOne('api/session');
+    const req = httpMock.expectOne(request => request.url === 'api/session');
     expect(req.request.method).toBe('GET');
-    req.flush(mockSessions);
+    expect(req.request.params.get('from')).toBe('1970-01-01T00:00:00.000Z');
+    expect(req.request.params.has('cursor')).toBe(false);
+    req.flush(mockSessions, { headers: { 'X-Next-Cursor': 'next' } });
+  });
+
+  it('should fetch the following page from the cursor', () => {
+    sessionApiService.page('next').subscribe(response => {
+      expect(response.sessions).toEqual([mockSession]);
+      expect(response.nextCursor).toBeNull();
+    });
+
+    const req = httpMock.expectOne(request => request.url === 'api/session');
+    expect(req.request.params.get('cursor')).toBe('next');
+    req.flush([mockSession]);
   });
 
   it('should call detail and return session detail', () => {
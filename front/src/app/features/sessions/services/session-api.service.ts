@@ -1,7 +1,11 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { Observable, map } from 'rxjs';
 import { Session } from '../interfaces/session.interface';
+import { SessionPage } from '../interfaces/sessionPage.interface';
+
+// Without a lower bound the listing starts at now: past sessions are listed too
+const LISTING_FROM = '1970-01-01T00:00:00.000Z';
 
 @Injectable({
   providedIn: 'root'
@@ -13,8 +17,19 @@ export class SessionApiService {
   constructor(private httpClient: HttpClient) {
   }
 
-  public all(): Observable<Session[]> {
-    return this.httpClient.get<Session[]>(this.pathService);
+  // One page of the listing in date order, the following one from the cursor the previous page returned
+  public page(cursor?: string | null): Observable<SessionPage> {
+    let params = new HttpParams().set('from', LISTING_FROM);
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+
+    return this.httpClient.get<Session[]>(this.pathService, { params, observe: 'response' }).pipe(
+      map(response => ({
+        sessions: response.body ?? [],
+        nextCursor: response.headers.get('X-Next-Cursor')
+      }))
+    );
   }
 
   public detail(id: string): Observable<Session> {
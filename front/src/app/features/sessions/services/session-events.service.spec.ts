@@ -0,0 +1,106 @@
+import { TestBed, fakeAsync, tick } from '@angular/core/testing';
+import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
+import { expect } from '@jest/globals';
+import { RESYNC, SessionEvent } from '../interfaces/sessionUpdate.interface';
+import { RECONNECT_DELAY_MS, SessionEventsService } from './session-events.service';
+
+class FakeEventSource {
+  static readonly CONNECTING = 0;
+  static readonly OPEN = 1;
+  static readonly CLOSED = 2;
+  static instances: FakeEventSource[] = [];
+
+  readyState = FakeEventSource.CONNECTING;
+  onopen: (() => void) | null = null;
+  onerror: (() => void) | null = null;
+  private listeners: { [type: string]: ((event: MessageEvent) => void)[] } = {};
+
+  constructor(public url: string) {
+    FakeEventSource.instances.push(this);
+  }
+
+  addEventListener(type: string, listener: (event: MessageEvent) => void): void {
+    (this.listeners[type] = this.listeners[type] || []).push(listener);
+  }
+
+  close(): void {
+    this.readyState = FakeEventSource.CLOSED;
+  }
+
+  open(): void {
+    this.readyState = FakeEventSource.OPEN;
+    this.onopen?.();
+  }
+
+  emit(type: string, data: string): void {
+    (this.listeners[type] || []).forEach(listener => listener({ data } as MessageEvent));
+  }
+
+  fail(): void {
+    this.readyState = FakeEventSource.CLOSED;
+    this.onerror?.();
+  }
+}
+
+describe('SessionEventsService', () => {
+  let httpMock: HttpTestingController;
+  let sessionEventsService: SessionEventsService;
+  const originalEventSource = (window as any).EventSource;
+
+  beforeEach(() => {
+    FakeEventSource.instances = [];
+    (window as any).EventSource = FakeEventSource;
+
+    TestBed.configureTestingModule({
+      imports: [HttpClientTestingModule]
+    });
+
+    sessionEventsService = TestBed.inject(SessionEventsService);
+    httpMock = TestBed.inject(HttpTestingController);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+    (window as any).EventSource = originalEventSource;
+  });
+
+  it('should open the stream with a ticket and emit session updates', () => {
+    const events: SessionEvent[] = [];
+    const subscription = sessionEventsService.session('1').subscribe(event => events.push(event));
+
+    const ticketReq = httpMock.expectOne('api/session/events/ticket');
+    expect(ticketReq.request.method).toBe('POST');
+    ticketReq.flush({ ticket: 'abc', expiresIn: 30000 });
+
+    const source = FakeEventSource.instances[0];
+    expect(source.url).toBe('api/session/1/events?ticket=abc');
+
+    source.open();
+    source.emit('session', '{"sessionId":1,"deleted":false,"capacity":10,"seatsTaken":2,"users":[2,3]}');
+    source.emit(RESYNC, '');
+
+    expect(events).toEqual([{ sessionId: 1, deleted: false, capacity: 10, seatsTaken: 2, users: [2, 3] }, RESYNC]);
+
+    subscription.unsubscribe();
+    expect(source.readyState).toBe(FakeEventSource.CLOSED);
+  });
+
+  it('should reconnect with a new ticket once the browser gives up and ask for a resync', fakeAsync(() => {
+    const events: SessionEvent[] = [];
+    const subscription = sessionEventsService.catalog().subscribe(event => events.push(event));
+
+    httpMock.expectOne('api/session/events/ticket').flush({ ticket: 'first', expiresIn: 30000 });
+    FakeEventSource.instances[0].open();
+    FakeEventSource.instances[0].fail();
+
+    tick(RECONNECT_DELAY_MS);
+    httpMock.expectOne('api/session/events/ticket').flush({ ticket: 'second', expiresIn: 30000 });
+    const reconnected = FakeEventSource.instances[1];
+    expect(reconnected.url).toBe('api/session/events?ticket=second');
+
+    reconnected.open();
+    expect(events).toEqual([RESYNC]);
+
+    subscription.unsubscribe();
+  }));
+});
@@ -0,0 +1,83 @@
+import { HttpClient } from '@angular/common/http';
+import { Injectable, NgZone } from '@angular/core';
+import { Observable, Subscription } from 'rxjs';
+import { RESYNC, SessionEvent } from '../interfaces/sessionUpdate.interface';
+
+interface StreamTicket {
+  ticket: string;
+  expiresIn: number;
+}
+
+export const RECONNECT_DELAY_MS = 5000;
+
+/**
+ * Server-Sent Events of the sessions. EventSource cannot send the Authorization header, so every connection
+ * first asks for a short-lived ticket, passed in the query string.
+ */
+@Injectable({
+  providedIn: 'root'
+})
+export class SessionEventsService {
+
+  private pathService = 'api/session';
+
+  constructor(private httpClient: HttpClient, private ngZone: NgZone) {
+  }
+
+  public catalog(): Observable<SessionEvent> {
+    return this.stream(`${this.pathService}/events`);
+  }
+
+  public session(id: string): Observable<SessionEvent> {
+    return this.stream(`${this.pathService}/${id}/events`);
+  }
+
+  private stream(path: string): Observable<SessionEvent> {
+    return new Observable<SessionEvent>(subscriber => {
+      let source: EventSource | undefined;
+      let ticketRequest: Subscription | undefined;
+      let reconnect: ReturnType<typeof setTimeout> | undefined;
+      let opened = false;
+
+      const retry = () => {
+        source?.close();
+        source = undefined;
+        reconnect = setTimeout(connect, RECONNECT_DELAY_MS);
+      };
+
+      const connect = () => {
+        ticketRequest = this.httpClient.post<StreamTicket>(`${this.pathService}/events/ticket`, null).subscribe({
+          next: ({ ticket }) => {
+            source = new EventSource(`${path}?ticket=${encodeURIComponent(ticket)}`);
+            // Updates sent while disconnected are lost
+            source.onopen = () => this.ngZone.run(() => {
+              if (opened) {
+                subscriber.next(RESYNC);
+              }
+              opened = true;
+            });
+            source.addEventListener('session', event =>
+              this.ngZone.run(() => subscriber.next(JSON.parse((event as MessageEvent).data))));
+            source.addEventListener(RESYNC, () => this.ngZone.run(() => subscriber.next(RESYNC)));
+            // The browser reconnects dropped streams with the same ticket; once it gives up, e.g. on the 401
+            // of an expired ticket, start over with a new one
+            source.onerror = () => {
+              if (source?.readyState === EventSource.CLOSED) {
+                retry();
+              }
+            };
+          },
+          error: () => retry()
+        });
+      };
+
+      connect();
+
+      return () => {
+        ticketRequest?.unsubscribe();
+        clearTimeout(reconnect);
+        source?.close();
+      };
+    });
+  }
+}
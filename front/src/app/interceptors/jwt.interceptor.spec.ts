@@ -0,0 +1,84 @@
+import { HttpClient, HTTP_INTERCEPTORS } from '@angular/common/http';
+import { TestBed } from '@angular/core/testing';
+import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
+import { JwtInterceptor } from './jwt.interceptor';
+import { SessionService } from '../services/session.service';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
+import { expect } from '@jest/globals';
+
+describe('JwtInterceptor', () => {
+  let httpClient: HttpClient;
+  let httpMock: HttpTestingController;
+  let sessionService: SessionService;
+
+  const mockSessionInformation: SessionInformation = {
+    token: 'expired',
+    type: 'Bearer',
+    refreshToken: 'refresh-1',
+    id: 1,
+    username: 'test@test.com',
+    firstName: 'Test',
+    lastName: 'User',
+    admin: false
+  };
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      imports: [HttpClientTestingModule],
+      providers: [
+        SessionService,
+        { provide: HTTP_INTERCEPTORS, useClass: JwtInterceptor, multi: true }
+      ]
+    });
+
+    httpClient = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+    sessionService = TestBed.inject(SessionService);
+    sessionService.logIn({ ...mockSessionInformation });
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should send the access token', () => {
+    httpClient.get('api/session').subscribe();
+
+    const req = httpMock.expectOne('api/session');
+    expect(req.request.headers.get('Authorization')).toBe('Bearer expired');
+    req.flush([]);
+  });
+
+  it('should refresh once and retry the requests rejected with 401', () => {
+    let first: unknown;
+    let second: unknown;
+    httpClient.get('api/session').subscribe(response => first = response);
+    httpClient.get('api/teacher').subscribe(response => second = response);
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/teacher').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    const refresh = httpMock.expectOne('api/auth/refresh');
+    expect(refresh.request.body).toEqual({ refreshToken: 'refresh-1' });
+    refresh.flush({ ...mockSessionInformation, token: 'fresh', refreshToken: 'refresh-2' });
+
+    const retries = httpMock.match(req => req.headers.get('Authorization') === 'Bearer fresh');
+    expect(retries.length).toBe(2);
+    retries.forEach(req => req.flush([]));
+
+    expect(first).toEqual([]);
+    expect(second).toEqual([]);
+    expect(sessionService.sessionInformation!.refreshToken).toBe('refresh-2');
+  });
+
+  it('should log out when the refresh is rejected', () => {
+    let status: number | undefined;
+    httpClient.get('api/session').subscribe({ error: error => status = error.status });
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/auth/refresh').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    expect(status).toBe(401);
+    expect(sessionService.isLogged).toBe(false);
+  });
+});
@@ -1,19 +1,71 @@
-import { HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
+import { HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest, HttpResponse } from "@angular/common/http";
 import { Injectable } from "@angular/core";
+import { Observable, throwError } from 'rxjs';
+import { catchError, filter, finalize, map, shareReplay, switchMap, tap } from 'rxjs/operators';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
 import { SessionService } from '../services/session.service';
 
 @Injectable({ providedIn: 'root' })
 export class JwtInterceptor implements HttpInterceptor {
+  // Refresh in flight, shared by every request rejected meanwhile: refresh tokens are single use
+  private refresh$: Observable<SessionInformation> | null = null;
+
   constructor(private sessionService: SessionService) {}
 
-  public intercept(request: HttpRequest<any>, next: HttpHandler) {
-    if (this.sessionService.isLogged) {
-      request = request.clone({
-        setHeaders: {
-          Authorization: `Bearer ${this.sessionService.sessionInformation!.token}`,
-        },
-      });
+  public intercept(request: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
+    if (!this.sessionService.isLogged) {
+      return next.handle(request);
+    }
+
+    const token = this.sessionService.sessionInformation!.token;
+    return next.handle(this.withToken(request, token)).pipe(
+      catchError((error) => {
+        if (!(error instanceof HttpErrorResponse) || error.status !== 401 || request.url.startsWith('api/auth/')) {
+          return throwError(() => error);
+        }
+
+        // Another request may have refreshed the access token already
+        const current = this.sessionService.sessionInformation;
+        if (current && current.token !== token) {
+          return next.handle(this.withToken(request, current.token));
+        }
+
+        return this.refresh(next).pipe(
+          switchMap((session) => next.handle(this.withToken(request, session.token)))
+        );
+      })
+    );
+  }
+
+  private withToken(request: HttpRequest<any>, token: string): HttpRequest<any> {
+    return request.clone({
+      setHeaders: {
+        Authorization: `Bearer ${token}`,
+      },
+    });
+  }
+
+  private refresh(next: HttpHandler): Observable<SessionInformation> {
+    const refreshToken = this.sessionService.sessionInformation?.refreshToken;
+    if (!refreshToken) {
+      this.sessionService.logOut();
+      return throwError(() => new HttpErrorResponse({ status: 401, url: 'api/auth/refresh' }));
     }
-    return next.handle(request);
+
+    if (!this.refresh$) {
+      this.refresh$ = next.handle(new HttpRequest('POST', 'api/auth/refresh', { refreshToken })).pipe(
+        filter((event): event is HttpResponse<SessionInformation> => event instanceof HttpResponse),
+        map((response) => response.body!),
+        tap((session) => this.sessionService.logIn(session)),
+        catchError((error) => {
+          this.sessionService.logOut();
+          return throwError(() => error);
+        }),
+        finalize(() => this.refresh$ = null),
+        shareReplay(1)
+      );
+    }
+
+    return this.refresh$;
   }
 }
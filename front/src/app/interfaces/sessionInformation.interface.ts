@@ -2,6 +2,7 @@
 export interface SessionInformation {
   token: string;
   type: string;
+  refreshToken?: string;
   id: number;
   username: string;
   firstName: string;
@@ -1,3 +1,6 @@
+-- Schema before Flyway, the backend now creates and upgrades it from back/src/main/resources/db/migration.
+-- Databases created from this script are baselined by the first migration run.
+
 CREATE TABLE `TEACHERS` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),